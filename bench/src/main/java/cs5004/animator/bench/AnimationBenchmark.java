@@ -0,0 +1,144 @@
+package cs5004.animator.bench;
+
+import cs5004.animator.model.AnimatorModel;
+import cs5004.animator.model.IAnimatorModel;
+import cs5004.animator.model.shapeutil.IShape;
+import cs5004.animator.util.AnimationReader;
+import cs5004.animator.view.SvgView;
+import cs5004.animator.view.TextView;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A JMH benchmark of every stage of the animator, run on the animations in the resources folder:
+ * parsing a file, applying ticks, getting the shapes at a tick, and writing the SVG and text views.
+ * Each stage is measured as a throughput in operations per second, and running the benchmark with
+ * {@code -prof gc} also reports the allocation rate of each stage. The animation file is read in
+ * memory before measuring, so parsing is measured without reading the disk.
+ *
+ * <p>Usage, from the bench folder: {@code java -jar target/benchmarks.jar AnimationBenchmark
+ * -prof gc}. The resources folder is looked up in the working directory and its parent.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationBenchmark {
+
+  @Param({"smalldemo.txt", "buildings.txt", "toh-8.txt", "toh-12.txt",
+      "big-bang-big-crunch.txt"})
+  private String file;
+
+  private String text;
+  private IAnimatorModel model;
+  private int lastTick;
+  private int tick = 0;
+
+  /**
+   * Reads the animation file and builds its model.
+   *
+   * @throws IOException if the animation file cannot be read
+   */
+  @Setup
+  public void setUp() throws IOException {
+    File path = new File("resources", this.file);
+    if (!path.exists()) {
+      path = new File(new File("..", "resources"), this.file);
+    }
+    this.text = new String(Files.readAllBytes(path.toPath()));
+    this.model = this.parse();
+    this.lastTick = this.model.getLastTick();
+  }
+
+  /**
+   * Returns the next tick of the animation, going back to the first tick after the last one, so
+   * the ticks are visited in order as when the animation is played.
+   *
+   * @return the next tick
+   */
+  private int nextTick() {
+    this.tick = this.tick % this.lastTick + 1;
+    return this.tick;
+  }
+
+  /**
+   * Parses the animation file into a new model.
+   *
+   * @return the model
+   */
+  @Benchmark
+  public IAnimatorModel parse() {
+    return AnimationReader.parseFile(new StringReader(this.text), new AnimatorModel.Builder());
+  }
+
+  /**
+   * Parses the animation file into a new model, splitting it into chunks parsed in parallel.
+   *
+   * @return the model
+   */
+  @Benchmark
+  public IAnimatorModel parseParallel() {
+    return AnimationReader.parseFileParallel(new StringReader(this.text),
+        new AnimatorModel.Builder());
+  }
+
+  /**
+   * Applies the next tick of the animation to the model.
+   *
+   * @return the tick
+   */
+  @Benchmark
+  public int applyTick() {
+    int t = this.nextTick();
+    this.model.applyTick(t);
+    return t;
+  }
+
+  /**
+   * Returns the state of the shapes at the next tick of the animation.
+   *
+   * @return the shapes
+   */
+  @Benchmark
+  public List<IShape> getShapesAt() {
+    return this.model.getShapesAt(this.nextTick());
+  }
+
+  /**
+   * Returns the SVG view of the animation.
+   *
+   * @return the SVG text
+   */
+  @Benchmark
+  public String svgText() {
+    return new SvgView(this.model, "default", 20).getText();
+  }
+
+  /**
+   * Returns the text view of the animation.
+   *
+   * @return the text
+   */
+  @Benchmark
+  public String textViewText() {
+    return new TextView(this.model, "default").getText();
+  }
+}
@@ -0,0 +1,119 @@
+package cs5004.animator.bench;
+
+import cs5004.animator.model.AnimatorModel;
+import cs5004.animator.model.IAnimatorModel;
+import cs5004.animator.util.AnimationBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A JMH benchmark that compares applying ticks to the shapes of an animation sequentially and in
+ * parallel, to choose {@link AnimatorModel#DEFAULT_PARALLEL_THRESHOLD}. The ticks are applied in
+ * order, the way the controller plays them, to synthetic scenes of growing size where every shape
+ * is alive for the whole animation and moves, resizes and changes color in every motion. Each tick
+ * updates the shapes and fills the frame published to the renderer.
+ *
+ * <p>The threshold is the smallest scene where the parallel time per tick is below the sequential
+ * one. The parallel updates are only used when the common fork-join pool has more than one thread,
+ * so the benchmark is meant to be run on the machines the animator is played on. On a single core,
+ * running it with {@code -jvmArgs -Djava.util.concurrent.ForkJoinPool.common.parallelism=2}
+ * measures the cost of splitting a tick into tasks without any speedup to offset it.</p>
+ *
+ * <p>Usage, from the bench folder: {@code java -jar target/benchmarks.jar
+ * ParallelApplyTickBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelApplyTickBenchmark {
+
+  private static final int SYNTHETIC_TICKS = 200;
+
+  @Param({"1024", "2048", "4096", "8192", "16384", "32768", "65536"})
+  private int size;
+
+  @Param({"false", "true"})
+  private boolean parallel;
+
+  private AnimatorModel model;
+  private int tick = 0;
+
+  /**
+   * Builds the scene and sets whether its ticks are applied in parallel.
+   */
+  @Setup
+  public void setUp() {
+    this.model = syntheticScene(this.size);
+    this.model.setParallelThreshold(this.parallel ? 0 : Integer.MAX_VALUE);
+  }
+
+  /**
+   * Applies the next tick of the animation to the model, going back to the first tick after the
+   * last one.
+   *
+   * @return the tick
+   */
+  @Benchmark
+  public int applyTick() {
+    this.tick = this.tick % SYNTHETIC_TICKS + 1;
+    this.model.applyTick(this.tick);
+    return this.tick;
+  }
+
+  /**
+   * Returns a scene with the given number of shapes that are all alive for the whole animation and
+   * move, resize and change color in every motion.
+   *
+   * @param size the number of shapes
+   * @return the model of the scene
+   */
+  private static AnimatorModel syntheticScene(int size) {
+    Random random = new Random(size);
+    AnimationBuilder<IAnimatorModel> builder = new AnimatorModel.Builder();
+    builder.setBounds(0, 0, 1000, 1000);
+    for (int i = 0; i < size; i++) {
+      String name = "s" + i;
+      builder.declareShape(name, i % 2 == 0 ? "rectangle" : "ellipse");
+      int x = random.nextInt(1000);
+      int y = random.nextInt(1000);
+      int w = 1 + random.nextInt(50);
+      int h = 1 + random.nextInt(50);
+      int r = random.nextInt(256);
+      int g = random.nextInt(256);
+      int b = random.nextInt(256);
+      for (int t = 1; t < SYNTHETIC_TICKS; t += 20) {
+        int x2 = random.nextInt(1000);
+        int y2 = random.nextInt(1000);
+        int w2 = 1 + random.nextInt(50);
+        int h2 = 1 + random.nextInt(50);
+        int r2 = random.nextInt(256);
+        int g2 = random.nextInt(256);
+        int b2 = random.nextInt(256);
+        builder.addMotion(name, t, x, y, w, h, r, g, b, t + 20, x2, y2, w2, h2, r2, g2, b2);
+        x = x2;
+        y = y2;
+        w = w2;
+        h = h2;
+        r = r2;
+        g = g2;
+        b = b2;
+      }
+    }
+    return (AnimatorModel) builder.build();
+  }
+}
@@ -6,6 +6,9 @@ import cs5004.animator.model.AnimatorModel;
 import cs5004.animator.model.IAnimatorModel;
 import cs5004.animator.util.AnimationBuilder;
 import cs5004.animator.util.AnimationReader;
+import cs5004.animator.util.BinaryAnimationReader;
+import cs5004.animator.util.BinaryAnimationWriter;
+import cs5004.animator.view.BenchView;
 import cs5004.animator.view.IInteractiveView;
 import cs5004.animator.view.ITextualView;
 import cs5004.animator.view.InteractiveView;
@@ -13,17 +16,23 @@ import cs5004.animator.view.SvgView;
 import cs5004.animator.view.TextView;
 import cs5004.animator.view.VisualView;
 
+import java.awt.GraphicsEnvironment;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import javax.swing.JFrame;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 /**
- * The main class of the EasyAnimator. This class is responsible for running the program.
+ * The main class of the EasyAnimator. This class is responsible for running the program. No window
+ * is created unless a visual view is chosen, so the textual views and the bench view also run
+ * without a display.
  */
 public final class TheEasyAnimator {
 
-  private static final JFrame frame = new JFrame("Animator");
   private static IAnimatorModel model = new AnimatorModel();
 
   /**
@@ -34,11 +43,14 @@ public final class TheEasyAnimator {
     String inputFileName = null;
     String viewType = null;
     String outputFileName = "default";
+    boolean isCompact = false;
     ITextualView textView;
     VisualView visualView;
     IInteractiveView interactiveView;
 
     int integerTicksPerSecond = 1;
+    int iterations = 10;
+    int warmup = 3;
 
     for (int i = 0; i < args.length; i++) {
       switch (args[i]) {
@@ -58,30 +70,37 @@ public final class TheEasyAnimator {
           integerTicksPerSecond = Integer.parseInt(args[i + 1]);
           i++;
           break;
+        case "-iterations":
+          iterations = Integer.parseInt(args[i + 1]);
+          i++;
+          break;
+        case "-warmup":
+          warmup = Integer.parseInt(args[i + 1]);
+          i++;
+          break;
+        case "-compact":
+          isCompact = true;
+          break;
         default:
-          JOptionPane.showMessageDialog(frame,
-              "Command line argument \"" + args[i] + "\" is invalid.",
-              "Error",
-              JOptionPane.ERROR_MESSAGE);
+          showError("Command line argument \"" + args[i] + "\" is invalid.");
           System.exit(-1);
       }
     }
 
     if (inputFileName == null || viewType == null) {
-      JOptionPane.showMessageDialog(frame,
-          "Input file and view type must be specified in the command line",
-          "Error",
-          JOptionPane.ERROR_MESSAGE);
+      showError("Input file and view type must be specified in the command line");
       System.exit(-1);
     }
 
     try {
-      model = initializeAnimationModel(inputFileName);
+      // Animations that are played are shown while the rest of the file is still loading
+      if (viewType.equals("visual") || viewType.equals("edit")) {
+        model = loadAnimationModel(inputFileName);
+      } else {
+        model = initializeAnimationModel(inputFileName);
+      }
     } catch (IllegalArgumentException e) {
-      JOptionPane.showMessageDialog(frame,
-          e.getMessage(),
-          "Error",
-          JOptionPane.ERROR_MESSAGE);
+      showError(e.getMessage());
       System.exit(-1);
     }
 
@@ -93,7 +112,14 @@ public final class TheEasyAnimator {
         textView.write();
         break;
       case "svg":
-        textView = new SvgView(model, outputFileName, integerTicksPerSecond);
+        textView = new SvgView(model, outputFileName, integerTicksPerSecond, isCompact);
+        textView.write();
+        break;
+      case "binary":
+        writeBinaryFile(model, outputFileName);
+        break;
+      case "bench":
+        textView = new BenchView(model, outputFileName, iterations, warmup);
         textView.write();
         break;
       case "visual":
@@ -108,21 +134,36 @@ public final class TheEasyAnimator {
         controller.start();
         break;
       default:
-        JOptionPane.showMessageDialog(frame,
-            "Invalid View Type.",
-            "Error",
-            JOptionPane.ERROR_MESSAGE);
+        showError("Invalid View Type.");
         System.exit(-1);
     }
   }
 
   /**
-   * Returns a new animation model based on the input file path.
+   * Shows an error message in a dialog, or prints it to System.err when there is no display.
+   *
+   * @param message the error message
+   */
+  private static void showError(String message) {
+    if (GraphicsEnvironment.isHeadless()) {
+      System.err.println(message);
+    } else {
+      JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE);
+    }
+  }
+
+  /**
+   * Returns a new animation model based on the input file path. The file is either an animation in
+   * the text format, or an animation compiled in the binary format, which is recognized by its
+   * first bytes.
    *
    * @param inputFilePath the file name of the input file path
    * @return an AnimationOperations model
    */
   public static IAnimatorModel initializeAnimationModel(String inputFilePath) {
+    if (isBinaryFile(inputFilePath)) {
+      return readBinaryFile(inputFilePath);
+    }
     Readable in;
     try {
       in = new FileReader(inputFilePath);
@@ -130,7 +171,109 @@ public final class TheEasyAnimator {
       throw new IllegalArgumentException(e.getMessage());
     }
     AnimationBuilder<IAnimatorModel> builder = new AnimatorModel.Builder();
-    AnimationReader.parseFile(in, builder);
+    AnimationReader.parseFileParallel(in, builder);
     return builder.build();
   }
+
+  /**
+   * Returns a new animation model based on the input file path as soon as the canvas of the
+   * animation is known. The rest of the file is read on a background thread, and the shapes and
+   * motions are added to the model as they are read, so the animation can be shown and played
+   * while it is loading. If the file turns out to be invalid after the model was returned, the
+   * error is shown and the program exits.
+   *
+   * @param inputFilePath the file name of the input file path
+   * @return an AnimationOperations model, which may still be loading
+   * @throws IllegalArgumentException if the file cannot be opened, or if it is invalid before the
+   *                                  canvas is known
+   */
+  public static IAnimatorModel loadAnimationModel(String inputFilePath) {
+    // Binary files are read at once, since they take no time to load
+    if (isBinaryFile(inputFilePath)) {
+      return readBinaryFile(inputFilePath);
+    }
+    Readable in;
+    try {
+      in = new FileReader(inputFilePath);
+    } catch (FileNotFoundException e) {
+      throw new IllegalArgumentException(e.getMessage());
+    }
+    AnimatorModel.StreamingBuilder builder = new AnimatorModel.StreamingBuilder();
+    Thread loader = new Thread(() -> {
+      try {
+        AnimationReader.parseFile(in, builder);
+      } catch (CancellationException e) {
+        // Another animation was loaded into the model
+      } catch (RuntimeException e) {
+        if (builder.fail(e)) {
+          SwingUtilities.invokeLater(() -> {
+            showError(e.getMessage());
+            System.exit(-1);
+          });
+        }
+      }
+    }, "Animation loader");
+    loader.setDaemon(true);
+    loader.start();
+    try {
+      return builder.awaitModel();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalArgumentException("Interrupted while loading " + inputFilePath);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException(e.getMessage());
+    }
+  }
+
+  /**
+   * Returns whether the file at the given path is an animation compiled in the binary format.
+   *
+   * @param inputFilePath the path of the file
+   * @return true if the file is in the binary format, false otherwise
+   * @throws IllegalArgumentException if the file cannot be read
+   */
+  private static boolean isBinaryFile(String inputFilePath) {
+    try {
+      return BinaryAnimationReader.isBinaryFile(inputFilePath);
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e.getMessage());
+    }
+  }
+
+  /**
+   * Returns a new animation model from an animation compiled in the binary format.
+   *
+   * @param inputFilePath the path of the binary file
+   * @return an AnimationOperations model
+   * @throws IllegalArgumentException if the file cannot be read or is invalid
+   */
+  private static IAnimatorModel readBinaryFile(String inputFilePath) {
+    try {
+      return BinaryAnimationReader.parseFile(inputFilePath, new AnimatorModel.Builder());
+    } catch (IOException | IllegalStateException e) {
+      throw new IllegalArgumentException(e.getMessage());
+    }
+  }
+
+  /**
+   * Compiles the animation of the model to the binary format, written to the given file or to
+   * System.out if the file name is "default".
+   *
+   * @param model          the model of the animation
+   * @param outputFileName the file name of the output file
+   * @throws IllegalArgumentException if the file cannot be written to
+   */
+  private static void writeBinaryFile(IAnimatorModel model, String outputFileName) {
+    try {
+      if (outputFileName.equals("default")) {
+        BinaryAnimationWriter.write(model, System.out);
+      } else {
+        try (OutputStream out = new FileOutputStream(outputFileName)) {
+          BinaryAnimationWriter.write(model, out);
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failure to write to file");
+    }
+  }
 }
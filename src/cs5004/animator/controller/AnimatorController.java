@@ -3,8 +3,10 @@ package cs5004.animator.controller;
 import cs5004.animator.model.AnimatorModel;
 import cs5004.animator.model.IAnimatedShape;
 import cs5004.animator.model.IAnimatorModel;
+import cs5004.animator.monitor.PerformanceMonitor;
 import cs5004.animator.util.AnimationBuilder;
 import cs5004.animator.util.AnimationReader;
+import cs5004.animator.util.BinaryAnimationReader;
 import cs5004.animator.view.IInteractiveView;
 import cs5004.animator.view.ITextualView;
 import cs5004.animator.view.IVisualView;
@@ -13,24 +15,52 @@ import cs5004.animator.view.TextView;
 
 import java.awt.event.ActionEvent;
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
+import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import javax.management.JMException;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
 
 /**
  * A class implementing the AnimatorController interface. This class is responsible for
  * controlling the animation. This class is responsible for reading the input file, creating the
  * model, and creating the view. It also handles the user input and the animation. It also
- * stores the progress of the animation.
+ * stores the progress of the animation. While the animation is playing, the tick to be shown is
+ * read from a {@link PlaybackClock} at a capped frame rate, so the speed of the animation does not
+ * depend on how often or how quickly frames are drawn. Files are loaded and saved in the
+ * background, so the animation keeps playing meanwhile. The time taken by every tick, the ticks
+ * skipped and the late runs of the timer are recorded in the {@link PerformanceMonitor}, and the
+ * metrics of the animation are registered as an MBean when it starts, see
+ * {@link AnimatorMetrics}.
  */
 public class AnimatorController implements IAnimatorController {
 
+  // Highest number of frames drawn per second, whatever the speed of the animation
+  private static final int MAX_FRAMES_PER_SECOND = 60;
+  private static final long FRAME_PERIOD_NANOS = 1_000_000_000L / MAX_FRAMES_PER_SECOND;
+
   private final IAnimatorModel model;
   private final IVisualView view;
-  private final JFrame messageFrame = new JFrame("Message");
+  // Parent of the message dialogs, only made when a message is shown
+  private JFrame messageFrame = null;
 
   // Represent the state of the animation
   private int tick = 1;
@@ -42,7 +72,13 @@ public class AnimatorController implements IAnimatorController {
   // speed of the animation in ticks per second
   private final int defaultSpeed = 1;
   private int speed;
-  private Timer t = new Timer();
+  private Timer t;
+  private final PlaybackClock clock;
+  // Makes the timer of every run of the animation
+  private final Supplier<Timer> timers;
+  private final PerformanceMonitor monitor = PerformanceMonitor.getInstance();
+  // The file being loaded or saved in the background, or null if there is none
+  private SwingWorker<?, ?> task = null;
 
   /**
    * Constructs a new AnimatorController with the given model, view and speed of the animation.
@@ -54,11 +90,30 @@ public class AnimatorController implements IAnimatorController {
    */
   public AnimatorController(IAnimatorModel model, IVisualView view, int speed)
       throws IllegalArgumentException {
+    this(model, view, speed, new PlaybackClock(), Timer::new);
+  }
+
+  /**
+   * Constructs a new AnimatorController that reads the tick to be shown from the given clock, and
+   * shows the frames with the timers made by the given supplier.
+   *
+   * @param model  the model for the animation
+   * @param view   the visual view
+   * @param speed  the speed of the animation in ticks per second
+   * @param clock  the clock of the animation
+   * @param timers the supplier of the timer of every run of the animation
+   * @throws IllegalArgumentException if the model or view is null, or if the speed is less than 1
+   */
+  AnimatorController(IAnimatorModel model, IVisualView view, int speed, PlaybackClock clock,
+      Supplier<Timer> timers) throws IllegalArgumentException {
     if (view == null || model == null) {
       throw new IllegalArgumentException("Null argument");
     }
     this.model = model;
     this.view = view;
+    this.clock = clock;
+    this.timers = timers;
+    this.t = timers.get();
     this.speed = defaultSpeed;
     if (speed > 0) {
       this.speed = speed;
@@ -78,7 +133,24 @@ public class AnimatorController implements IAnimatorController {
    */
   public AnimatorController(IAnimatorModel model, IInteractiveView view, int speed,
       boolean enableEditing) {
-    this(model, view, speed);
+    this(model, view, speed, enableEditing, new PlaybackClock(), Timer::new);
+  }
+
+  /**
+   * Constructs a new AnimatorController played in an interactive mode or not, that reads the tick
+   * to be shown from the given clock, and shows the frames with the timers made by the given
+   * supplier.
+   *
+   * @param model         the model for the animation
+   * @param view          the visual view
+   * @param speed         the speed of the animation in ticks per second
+   * @param enableEditing true if the animation is played in an interactive mode, false otherwise
+   * @param clock         the clock of the animation
+   * @param timers        the supplier of the timer of every run of the animation
+   */
+  AnimatorController(IAnimatorModel model, IInteractiveView view, int speed,
+      boolean enableEditing, PlaybackClock clock, Supplier<Timer> timers) {
+    this(model, view, speed, clock, timers);
     this.enableEditing = enableEditing;
     if (this.enableEditing) {
       view.setListener(this);
@@ -87,6 +159,13 @@ public class AnimatorController implements IAnimatorController {
 
   @Override
   public void start() {
+    try {
+      new AnimatorMetrics(model, monitor).register();
+    } catch (JMException e) {
+      // The animation plays the same without its metrics, so this is not worth a dialog
+      System.err.println("The metrics of the animation could not be registered: "
+          + e.getMessage());
+    }
     this.view.display();
     view.display();
     model.applyTick(1);
@@ -100,7 +179,10 @@ public class AnimatorController implements IAnimatorController {
    */
   private void play() {
     if (!isPlaying) {
-      this.t = new Timer();
+      this.t = this.timers.get();
+      clock.start(tick, speed);
+      monitor.setRequestedSpeed(speed);
+      monitor.recordTimerStart();
       setTimerTask();
       isPlaying = true;
     }
@@ -111,6 +193,7 @@ public class AnimatorController implements IAnimatorController {
     if (isPlaying) {
       t.cancel();
       isPlaying = false;
+      monitor.setRequestedSpeed(0);
     }
   }
 
@@ -127,44 +210,72 @@ public class AnimatorController implements IAnimatorController {
   }
 
   /**
-   * Set the timer task for the animation.
+   * Set the timer task for the animation. Every frame shows the tick that is due according to the
+   * clock, skipping the ticks that were missed, and nothing is drawn when the tick did not change.
    */
   private void setTimerTask() {
     t.schedule(new TimerTask() {
+      private boolean isFirstFrame = true;
+
       @Override
       public void run() {
+        monitor.recordTimerRun(FRAME_PERIOD_NANOS);
+        int previousTick = tick;
+        tick = clock.getTick();
+        validateTick();
+        if (tick == previousTick && !isFirstFrame) {
+          return;
+        }
+        if (!isFirstFrame && tick > previousTick) {
+          monitor.recordDroppedTicks(tick - previousTick - 1);
+        }
+        isFirstFrame = false;
+        long start = System.nanoTime();
         model.applyTick(tick);
+        monitor.recordTick(System.nanoTime() - start);
         if (view instanceof IInteractiveView && enableEditing) {
           IInteractiveView v = (IInteractiveView) view;
           v.refreshAnimation();
         } else {
           view.refresh();
         }
-        tick += speed < 0 ? -1 : 1;
-        validateTick();
       }
-    }, 0, 1000 / Math.abs(speed));
+    }, 0, 1000 / MAX_FRAMES_PER_SECOND);
   }
 
   @Override
   public void setTick(int tick) {
+    // A view showing the current tick may report it back, which must not restart the clock and
+    // lose the progress made towards the next tick
+    if (tick == this.tick && tick == model.getTick()) {
+      return;
+    }
     this.tick = tick;
     validateTick();
-    model.applyTick(tick);
+    if (isPlaying) {
+      clock.start(this.tick, speed);
+    }
+    model.applyTick(this.tick);
     view.refresh();
   }
 
   /**
    * Validate the tick increment to ensure it is within the bounds of the animation. When reaching
    * the end of the animation, the animation will loop back to the beginning by resetting the tick
-   * if looping is enabled. Otherwise, the animation will be paused.
+   * if looping is enabled. Otherwise, the animation will be paused. While the model is still
+   * loading, the animation waits at the last loaded tick instead, until more of it is loaded.
    */
   private void validateTick() {
-    if (enableLooping) {
-      tick = ((tick - 1) % model.getLastTick()) + 1;
+    if (model.isLoading() && tick > model.getLastTick()) {
+      tick = model.getLastTick();
+      if (isPlaying) {
+        clock.start(tick, speed);
+      }
+    } else if (enableLooping) {
+      tick = Math.floorMod(tick - 1, model.getLastTick()) + 1;
     } else if (tick > model.getLastTick() || tick < 1) {
       pause();
-      tick = tick > model.getLastTick() ? tick - 1 : tick + 1;
+      tick = tick > model.getLastTick() ? model.getLastTick() : 1;
       isPlaying = false;
       hasEnded = true;
     }
@@ -188,7 +299,7 @@ public class AnimatorController implements IAnimatorController {
 
   @Override
   public void displayError(String errorMessage) {
-    JOptionPane.showMessageDialog(messageFrame,
+    JOptionPane.showMessageDialog(getMessageFrame(),
         errorMessage,
         "Error",
         JOptionPane.ERROR_MESSAGE);
@@ -198,13 +309,25 @@ public class AnimatorController implements IAnimatorController {
   public void displaySuccess(String message) {
     boolean suppressSuccessMessages = false;
     if (!suppressSuccessMessages) {
-      JOptionPane.showMessageDialog(messageFrame,
+      JOptionPane.showMessageDialog(getMessageFrame(),
           message,
           "Success",
           JOptionPane.PLAIN_MESSAGE);
     }
   }
 
+  /**
+   * Returns the frame the message dialogs are shown over, making it the first time.
+   *
+   * @return the frame of the messages
+   */
+  private JFrame getMessageFrame() {
+    if (this.messageFrame == null) {
+      this.messageFrame = new JFrame("Message");
+    }
+    return this.messageFrame;
+  }
+
   @Override
   public void actionPerformed(ActionEvent e) {
     IInteractiveView view = (IInteractiveView) this.view;
@@ -223,6 +346,7 @@ public class AnimatorController implements IAnimatorController {
         break;
       case "Reset":
         tick = 1;
+        pause();
         play();
         break;
       case "Enable Looping":
@@ -242,67 +366,261 @@ public class AnimatorController implements IAnimatorController {
         }
         break;
       case "Load":
-        String loadFile = view.getLoadFilePath();
-        Readable in;
-        try {
-          in = new BufferedReader(new FileReader(loadFile));
-          displaySuccess("'" + loadFile + "' loaded");
-        } catch (FileNotFoundException z) {
-          displayError("Fail to load this file. Please provide a valid file path.");
-          throw new IllegalArgumentException(z.getMessage());
+        this.load(view, view.getLoadFilePath());
+        break;
+      case "Save":
+        this.save(view, view.getSaveFilePath());
+        break;
+      case "Cancel":
+        if (this.task != null) {
+          this.task.cancel(false);
         }
-        AnimationBuilder<IAnimatorModel> builder = new AnimatorModel.Builder();
-        try {
-          AnimationReader.parseFile(in, builder);
-          IAnimatorModel newModel = builder.build();
-          this.model.clear();
-          for (IAnimatedShape animatedShape : newModel.getAnimatedShapes()) {
-            this.model.addAnimatedShape(animatedShape);
+        break;
+      default:
+        break;
+    }
+    view.refresh();
+  }
+
+  /**
+   * Starts loading the animation of the given file in the background. The animation of the model
+   * is replaced in a single step once the file is read, and the animation plays from the start.
+   *
+   * @param view     the interactive view
+   * @param loadFile the path of the file to load
+   */
+  private void load(IInteractiveView view, String loadFile) {
+    if (this.task != null) {
+      displayError("Please wait until the current file is loaded or saved.");
+      return;
+    }
+    this.startTask(view, "Loading '" + loadFile + "'", 0, new LoadTask(view, loadFile));
+  }
+
+  /**
+   * Starts saving the animation of the model in the background, as an SVG or a text file depending
+   * on the extension of the given file.
+   *
+   * @param view     the interactive view
+   * @param saveFile the path of the file to save to
+   */
+  private void save(IInteractiveView view, String saveFile) {
+    if (this.task != null) {
+      displayError("Please wait until the current file is loaded or saved.");
+      return;
+    }
+    if (saveFile.length() < 3) {
+      displayError("Please provide a valid file path.");
+      return;
+    }
+    ITextualView textView;
+    switch (saveFile.substring(saveFile.length() - 3).toLowerCase()) {
+      case "svg":
+        textView = new SvgView(this.model, saveFile, speed);
+        break;
+      case "txt":
+        textView = new TextView(this.model, saveFile);
+        break;
+      default:
+        displayError("Invalid file type. Only allow .svg or .txt");
+        return;
+    }
+    this.startTask(view, "Saving '" + saveFile + "'", -1,
+        new SaveTask(view, saveFile, textView));
+  }
+
+  /**
+   * Runs the given task in the background, showing its progress in the view until it is done.
+   *
+   * @param view        the interactive view
+   * @param description the description of the task
+   * @param percent     the progress of the task reported until the task reports any, negative if
+   *                    the task never reports its progress
+   * @param task        the task
+   */
+  private void startTask(IInteractiveView view, String description, int percent,
+      SwingWorker<?, ?> task) {
+    this.task = task;
+    view.showTaskProgress(description, percent);
+    task.addPropertyChangeListener((e) -> {
+      if ("progress".equals(e.getPropertyName()) && this.task == task) {
+        view.showTaskProgress(description, (Integer) e.getNewValue());
+      }
+    });
+    task.execute();
+  }
+
+  /**
+   * Ends the given task, hiding its progress in the view.
+   *
+   * @param view the interactive view
+   * @param task the task that is done
+   */
+  private void endTask(IInteractiveView view, SwingWorker<?, ?> task) {
+    if (this.task == task) {
+      this.task = null;
+      view.hideTaskProgress();
+    }
+  }
+
+  /**
+   * Represents the loading of an animation file in the background. The file is read into a new
+   * model, whose shapes replace the shapes of the model of the controller when the file is read.
+   * The model of the controller cannot hold two shapes with the same id, so a file declaring the
+   * same name twice fails to load like an invalid file. Reading stops as soon as the task is
+   * cancelled.
+   */
+  private final class LoadTask extends SwingWorker<List<IAnimatedShape>, Void> {
+
+    private final IInteractiveView view;
+    private final String loadFile;
+
+    /**
+     * Constructs a task loading the given file.
+     *
+     * @param view     the interactive view
+     * @param loadFile the path of the file to load
+     */
+    private LoadTask(IInteractiveView view, String loadFile) {
+      this.view = view;
+      this.loadFile = loadFile;
+    }
+
+    @Override
+    protected List<IAnimatedShape> doInBackground() throws IOException {
+      AnimationBuilder<IAnimatorModel> builder = new AnimatorModel.Builder();
+      if (BinaryAnimationReader.isBinaryFile(this.loadFile)) {
+        return checkIds(
+            BinaryAnimationReader.parseFile(this.loadFile, builder).getAnimatedShapes());
+      }
+      long length = new File(this.loadFile).length();
+      try (Reader in = new BufferedReader(new FileReader(this.loadFile))) {
+        AnimationReader.parseFile(new ProgressReadable(in, length, (percent) -> {
+          if (this.isCancelled()) {
+            throw new CancellationException();
           }
-        } catch (Exception x) {
-          displayError("Fail to load this file. Please provide a valid file type.");
+          this.setProgress(percent);
+        }), builder);
+      }
+      return checkIds(builder.build().getAnimatedShapes());
+    }
+
+    /**
+     * Ensures that the given shapes can replace the shapes of the model, which do not share ids.
+     *
+     * @param shapes the shapes read from the file
+     * @return the shapes
+     * @throws IllegalArgumentException if two shapes have the same id
+     */
+    private List<IAnimatedShape> checkIds(List<IAnimatedShape> shapes) {
+      Set<String> ids = new HashSet<>();
+      for (IAnimatedShape s : shapes) {
+        if (!ids.add(s.getId())) {
+          throw new IllegalArgumentException("Shape " + s.getId() + " is declared twice");
         }
-        try {
-          Thread.sleep(100);
-        } catch (InterruptedException ex) {
-          throw new RuntimeException(ex);
+      }
+      return shapes;
+    }
+
+    @Override
+    protected void done() {
+      endTask(this.view, this);
+      if (this.isCancelled()) {
+        displaySuccess("Loading '" + this.loadFile + "' was cancelled");
+        return;
+      }
+      try {
+        model.setAnimatedShapes(this.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          displayError("Fail to load this file. Please provide a valid file path.");
+        } else {
+          displayError("Fail to load this file. Please provide a valid file type.");
         }
-        this.view.refresh();
-        this.view.display();
-        tick = 1;
-        setTimerTask();
-        break;
-      case "Save":
-        String saveFile = view.getSaveFilePath();
-        if (saveFile.length() < 3) {
-          displayError("Please provide a valid file path.");
+        return;
+      }
+      displaySuccess("'" + this.loadFile + "' loaded");
+      tick = 1;
+      pause();
+      play();
+      this.view.refresh();
+    }
+  }
+
+  /**
+   * Represents the saving of the animation to a file in the background. The animation is written
+   * to a temporary file next to the file, which then replaces the file, so the file is never left
+   * half written. Writing stops as soon as the task is cancelled.
+   */
+  private final class SaveTask extends SwingWorker<Void, Void> {
+
+    private final IInteractiveView view;
+    private final String saveFile;
+    private final ITextualView textView;
+
+    /**
+     * Constructs a task saving the animation to the given file.
+     *
+     * @param view     the interactive view
+     * @param saveFile the path of the file to save to
+     * @param textView the view writing the animation
+     */
+    private SaveTask(IInteractiveView view, String saveFile, ITextualView textView) {
+      this.view = view;
+      this.saveFile = saveFile;
+      this.textView = textView;
+    }
+
+    @Override
+    protected Void doInBackground() throws IOException {
+      Path target = Paths.get(this.saveFile).toAbsolutePath();
+      Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(),
+          ".tmp");
+      boolean isSaved = false;
+      try {
+        try (Writer out = new CancellableWriter(
+            Files.newBufferedWriter(temp, Charset.defaultCharset()), () -> {
+              if (this.isCancelled()) {
+                throw new CancellationException();
+              }
+            })) {
+          this.textView.writeTo(out);
         }
-        String fileType = "";
         try {
-          fileType = saveFile.substring(saveFile.length() - 3).toLowerCase();
-        } catch (IndexOutOfBoundsException e1) {
-          displayError("Please provide a valid file path.");
+          Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
         }
-        ITextualView textView;
-        switch (fileType) {
-          case "svg":
-            textView = new SvgView(this.model, saveFile, speed);
-            textView.write();
-            displaySuccess("'" + saveFile + "' saved");
-            break;
-          case "txt":
-            textView = new TextView(this.model, saveFile);
-            textView.write();
-            displaySuccess("'" + saveFile + "' saved");
-            break;
-          default:
-            displayError("Invalid file type. Only allow .svg or .txt");
-            break;
+        isSaved = true;
+      } finally {
+        if (!isSaved) {
+          Files.deleteIfExists(temp);
         }
-        break;
-      default:
-        break;
+      }
+      return null;
+    }
+
+    @Override
+    protected void done() {
+      endTask(this.view, this);
+      if (this.isCancelled()) {
+        displaySuccess("Saving '" + this.saveFile + "' was cancelled");
+        return;
+      }
+      try {
+        this.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException e) {
+        displayError("Fail to save this file. Please provide a valid file path.");
+        return;
+      }
+      displaySuccess("'" + this.saveFile + "' saved");
     }
-    view.refresh();
   }
 }
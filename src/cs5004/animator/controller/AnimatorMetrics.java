@@ -0,0 +1,191 @@
+package cs5004.animator.controller;
+
+import cs5004.animator.model.IAnimatorModel;
+import cs5004.animator.model.ModelStatistics;
+import cs5004.animator.monitor.PerformanceMonitor;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Represents the metrics of a running animation, registered by the controller with the platform
+ * MBean server under the name {@value #NAME}. The playback metrics are read from the counters of
+ * the {@link PerformanceMonitor}, and the size of the animation and its caches from the statistics
+ * of the model, so nothing is computed until the metrics are read.
+ */
+public final class AnimatorMetrics implements AnimatorMetricsMBean {
+
+  /**
+   * The name the metrics are registered under.
+   */
+  public static final String NAME = "cs5004.animator:type=Animator";
+
+  // Shortest time the rates are measured over, in nanoseconds
+  private static final long RATE_PERIOD = 1_000_000_000L;
+
+  private final IAnimatorModel model;
+  private final PerformanceMonitor monitor;
+  // Samples taken at least a period apart, the rates are measured from the older one
+  private PerformanceMonitor.Sample rateStart;
+  private PerformanceMonitor.Sample rateEnd;
+
+  /**
+   * Constructs the metrics of the animation of the given model, played with the given monitor.
+   *
+   * @param model   the model of the animation
+   * @param monitor the monitor recording the performance of the animation
+   * @throws IllegalArgumentException if the model or monitor is null
+   */
+  public AnimatorMetrics(IAnimatorModel model, PerformanceMonitor monitor)
+      throws IllegalArgumentException {
+    if (model == null || monitor == null) {
+      throw new IllegalArgumentException("Null argument");
+    }
+    this.model = model;
+    this.monitor = monitor;
+    this.rateStart = monitor.sample();
+    this.rateEnd = this.rateStart;
+  }
+
+  /**
+   * Registers the metrics with the platform MBean server, replacing the metrics registered before.
+   *
+   * @throws JMException if the metrics cannot be registered
+   */
+  public void register() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(NAME);
+    if (server.isRegistered(name)) {
+      server.unregisterMBean(name);
+    }
+    server.registerMBean(this, name);
+  }
+
+  @Override
+  public int getCurrentTick() {
+    return this.model.getTick();
+  }
+
+  @Override
+  public int getRequestedSpeed() {
+    return this.monitor.getRequestedSpeed();
+  }
+
+  @Override
+  public double getTickRate() {
+    PerformanceMonitor.Sample now = this.monitor.sample();
+    return now.getTicksPerSecond(this.getRateStart(now));
+  }
+
+  @Override
+  public double getFrameRate() {
+    PerformanceMonitor.Sample now = this.monitor.sample();
+    return now.getFramesPerSecond(this.getRateStart(now));
+  }
+
+  /**
+   * Returns the sample the rates are measured from, moving it forward when the last one is a period
+   * old, so the rates are measured over at least a period and at most two since they were last
+   * read.
+   *
+   * @param now the sample taken now
+   * @return the sample to measure the rates from
+   */
+  private synchronized PerformanceMonitor.Sample getRateStart(PerformanceMonitor.Sample now) {
+    if (now.getTime() - this.rateEnd.getTime() >= RATE_PERIOD) {
+      this.rateStart = this.rateEnd;
+      this.rateEnd = now;
+    }
+    return this.rateStart;
+  }
+
+  @Override
+  public double getAverageFrameTime() {
+    return getAverage(this.monitor.getTotalPaintTime(), this.monitor.getFrames());
+  }
+
+  @Override
+  public double getMaxFrameTime() {
+    return this.monitor.getMaxPaintTime() / 1e6;
+  }
+
+  @Override
+  public double getAverageTickTime() {
+    return getAverage(this.monitor.getTotalTickTime(), this.monitor.getTicks());
+  }
+
+  @Override
+  public double getMaxTickTime() {
+    return this.monitor.getMaxTickTime() / 1e6;
+  }
+
+  @Override
+  public long getLateFrameCount() {
+    return this.monitor.getLateFrames();
+  }
+
+  @Override
+  public long getDroppedTickCount() {
+    return this.monitor.getDroppedTicks();
+  }
+
+  @Override
+  public int getShapeCount() {
+    return this.model.getStatistics().getShapeCount();
+  }
+
+  @Override
+  public int getMotionCount() {
+    return this.model.getStatistics().getMotionCount();
+  }
+
+  @Override
+  public boolean isLoading() {
+    return this.model.isLoading();
+  }
+
+  @Override
+  public double getTimelineHitRatio() {
+    return this.model.getStatistics().getTimelineHitRatio();
+  }
+
+  @Override
+  public double getMotionLookupHitRatio() {
+    return this.model.getStatistics().getMotionLookupHitRatio();
+  }
+
+  @Override
+  public double getColorCacheHitRatio() {
+    long lookups = this.monitor.getColorLookups();
+    long misses = this.monitor.getColorLookupMisses();
+    return lookups <= 0 ? 1 : (double) (lookups - misses) / lookups;
+  }
+
+  @Override
+  public long getEstimatedModelBytes() {
+    return this.model.getStatistics().getEstimatedModelBytes();
+  }
+
+  @Override
+  public long getEstimatedFrameBytes() {
+    return this.model.getStatistics().getEstimatedFrameBytes();
+  }
+
+  @Override
+  public void resetMaximums() {
+    this.monitor.resetMaximums();
+  }
+
+  /**
+   * Returns the average of a total time over a count.
+   *
+   * @param totalNanos the total time in nanoseconds
+   * @param count      the count
+   * @return the average in milliseconds, or 0 if the count is 0
+   */
+  private static double getAverage(long totalNanos, long count) {
+    return count <= 0 ? 0 : totalNanos / 1e6 / count;
+  }
+}
@@ -0,0 +1,143 @@
+package cs5004.animator.controller;
+
+/**
+ * Represents the management interface of the metrics of a running animation, so a playback session
+ * can be watched with standard JVM tools such as JConsole or VisualVM. Times are in milliseconds,
+ * rates are per second, and ratios are between 0 and 1.
+ */
+public interface AnimatorMetricsMBean {
+
+  /**
+   * Returns the tick the animation is at.
+   *
+   * @return the current tick
+   */
+  int getCurrentTick();
+
+  /**
+   * Returns the speed the animation is played at.
+   *
+   * @return the speed in ticks per second, 0 if the animation is paused
+   */
+  int getRequestedSpeed();
+
+  /**
+   * Returns the number of ticks applied per second, measured over at least the last second.
+   *
+   * @return the number of ticks per second
+   */
+  double getTickRate();
+
+  /**
+   * Returns the number of frames painted per second, measured over at least the last second.
+   *
+   * @return the number of frames per second
+   */
+  double getFrameRate();
+
+  /**
+   * Returns the average time taken to paint a frame.
+   *
+   * @return the time in milliseconds
+   */
+  double getAverageFrameTime();
+
+  /**
+   * Returns the longest time taken to paint a frame since the start or since
+   * {@link #resetMaximums()}.
+   *
+   * @return the time in milliseconds
+   */
+  double getMaxFrameTime();
+
+  /**
+   * Returns the average time taken to apply a tick.
+   *
+   * @return the time in milliseconds
+   */
+  double getAverageTickTime();
+
+  /**
+   * Returns the longest time taken to apply a tick since the start or since
+   * {@link #resetMaximums()}.
+   *
+   * @return the time in milliseconds
+   */
+  double getMaxTickTime();
+
+  /**
+   * Returns the number of late runs of the timer playing the animation.
+   *
+   * @return the number of late frames
+   */
+  long getLateFrameCount();
+
+  /**
+   * Returns the number of ticks skipped between two frames.
+   *
+   * @return the number of ticks skipped
+   */
+  long getDroppedTickCount();
+
+  /**
+   * Returns the number of shapes in the animation.
+   *
+   * @return the number of shapes
+   */
+  int getShapeCount();
+
+  /**
+   * Returns the number of motions in the animation.
+   *
+   * @return the number of motions
+   */
+  int getMotionCount();
+
+  /**
+   * Returns whether the animation is still being loaded.
+   *
+   * @return true if the animation is loading, false otherwise
+   */
+  boolean isLoading();
+
+  /**
+   * Returns the ratio of the ticks applied that reused the timeline of the shapes.
+   *
+   * @return the ratio
+   */
+  double getTimelineHitRatio();
+
+  /**
+   * Returns the ratio of the lookups of the motion of a shape that did not search its motions.
+   *
+   * @return the ratio
+   */
+  double getMotionLookupHitRatio();
+
+  /**
+   * Returns the ratio of the colors painted that were found in the color cache of the views.
+   *
+   * @return the ratio
+   */
+  double getColorCacheHitRatio();
+
+  /**
+   * Returns the estimated memory used by the shapes, motions and keyframes of the animation.
+   *
+   * @return the estimated number of bytes
+   */
+  long getEstimatedModelBytes();
+
+  /**
+   * Returns the estimated memory used by the frames of the animation and the timeline of its
+   * shapes.
+   *
+   * @return the estimated number of bytes
+   */
+  long getEstimatedFrameBytes();
+
+  /**
+   * Resets the longest times taken to apply a tick and to paint a frame.
+   */
+  void resetMaximums();
+}
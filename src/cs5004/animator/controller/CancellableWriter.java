@@ -0,0 +1,43 @@
+package cs5004.animator.controller;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Represents a writer that checks whether writing should stop before every write to another writer.
+ * The check stops the writing by throwing an unchecked exception.
+ */
+final class CancellableWriter extends FilterWriter {
+
+  private final Runnable check;
+
+  /**
+   * Constructs a writer that writes to the given writer.
+   *
+   * @param out   the writer to write to
+   * @param check the check run before every write
+   */
+  CancellableWriter(Writer out, Runnable check) {
+    super(out);
+    this.check = check;
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    this.check.run();
+    super.write(c);
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    this.check.run();
+    super.write(cbuf, off, len);
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    this.check.run();
+    super.write(str, off, len);
+  }
+}
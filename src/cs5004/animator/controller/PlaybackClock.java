@@ -0,0 +1,63 @@
+package cs5004.animator.controller;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Represents the clock that tells which tick of an animation should be shown while it is playing.
+ * The tick is derived from the time elapsed since the clock was last started, measured with a
+ * monotonic clock, instead of being counted by a timer. A late or slow frame therefore never delays
+ * the animation: the next frame simply shows the tick that is due, skipping the ticks in between.
+ * The clock is started again from the current tick whenever the tick or the speed changes.
+ */
+final class PlaybackClock {
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private final LongSupplier nanoTime;
+  private int startTick = 1;
+  private int speed = 0;
+  private long startNanos;
+
+  /**
+   * Constructs a clock that measures time with {@link System#nanoTime}.
+   */
+  PlaybackClock() {
+    this(System::nanoTime);
+  }
+
+  /**
+   * Constructs a clock that measures time with the given source of nanoseconds.
+   *
+   * @param nanoTime the monotonic source of time in nanoseconds
+   */
+  PlaybackClock(LongSupplier nanoTime) {
+    this.nanoTime = nanoTime;
+    this.startNanos = nanoTime.getAsLong();
+  }
+
+  /**
+   * Starts the clock from the given tick at the given speed.
+   *
+   * @param tick  the tick shown now
+   * @param speed the speed of the animation in ticks per second, negative to play backward
+   */
+  synchronized void start(int tick, int speed) {
+    this.startTick = tick;
+    this.speed = speed;
+    this.startNanos = this.nanoTime.getAsLong();
+  }
+
+  /**
+   * Returns the tick that is due now. The tick is not bounded by the length of the animation.
+   *
+   * @return the current tick
+   */
+  synchronized int getTick() {
+    long elapsed = this.nanoTime.getAsLong() - this.startNanos;
+    // Whole seconds and the remaining nanoseconds are scaled separately so the product does not
+    // overflow for long animations played at high speeds
+    long ticks = (elapsed / NANOS_PER_SECOND) * this.speed
+        + (elapsed % NANOS_PER_SECOND) * this.speed / NANOS_PER_SECOND;
+    return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, this.startTick + ticks));
+  }
+}
@@ -0,0 +1,42 @@
+package cs5004.animator.controller;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * Represents a source of characters that reports how much of another source has been read. After
+ * every read, the percentage of the expected length read so far is passed to a listener, which may
+ * stop the reading by throwing an unchecked exception.
+ */
+final class ProgressReadable implements Readable {
+
+  private final Readable source;
+  private final long length;
+  private final IntConsumer listener;
+  private long count = 0;
+
+  /**
+   * Constructs a source that reads from the given source of the given expected length.
+   *
+   * @param source   the source to read from
+   * @param length   the expected number of characters in the source
+   * @param listener the listener told the percentage read after every read
+   */
+  ProgressReadable(Readable source, long length, IntConsumer listener) {
+    this.source = source;
+    this.length = length;
+    this.listener = listener;
+  }
+
+  @Override
+  public int read(CharBuffer cb) throws IOException {
+    int read = this.source.read(cb);
+    if (read > 0) {
+      this.count += read;
+    }
+    this.listener.accept(
+        this.length <= 0 ? 0 : (int) Math.min(100, this.count * 100 / this.length));
+    return read;
+  }
+}
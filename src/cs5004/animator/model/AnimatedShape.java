@@ -4,19 +4,42 @@ import cs5004.animator.model.shapeutil.IShape;
 import cs5004.animator.view.ITextualView;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Represents an animated shape in the animation. The animated shapes contains the {@link IShape}
  * object, a list of {@link Keyframe} objects that describe the state of the shape at specific
  * moments in time, and a list of {@link Motion} objects that describe the exact sequence of the
- * shape's changes throughout the animation.
+ * shape's changes throughout the animation. Motions and keyframes are immutable, so copies of an
+ * animated shape share the same lists until one of them adds a motion.
+ *
+ * <p>A tick applied while filling a frame is written into the frame directly from the motion,
+ * without creating any objects, and only applied to the shape when the shape is next read. Playing
+ * the animation therefore does not allocate a location and a color for every moving shape at every
+ * tick.</p>
  */
 public class AnimatedShape implements IAnimatedShape {
 
   private final IShape shape;
-  private final List<Motion> motions = new ArrayList<>();
-  private final List<Keyframe> keyframes = new ArrayList<>();
+  private List<Motion> motions = new ArrayList<>();
+  private List<Keyframe> keyframes = new ArrayList<>();
+  // Whether the lists of motions and keyframes are shared with a copy of this shape, in which case
+  // they have to be copied before a motion is added
+  private boolean isShared = false;
+  // Index of the last motion found by indexOfMotionAt, so playing the animation forward does not
+  // have to search the motions again
+  private int lastMotionIndex = 0;
+  // Index of the stationary motion whose state is currently applied to the shape, or -1 if the
+  // shape has to be updated when the next tick is applied
+  private int appliedStationaryIndex = -1;
+  // The last tick written to a frame, which is applied to the shape before the shape is read
+  private int unappliedTick = 0;
+  private boolean hasUnappliedTick = false;
+  // Number of motions looked up by indexOfMotionAt, and of lookups that had to search the motions.
+  // A shape is only updated by one thread at a time, so plain counters are enough.
+  private long motionLookups = 0;
+  private long motionLookupMisses = 0;
 
   /**
    * Constructs an animated shape with the given shape and list of keyframes. Add the list of
@@ -31,13 +54,10 @@ public class AnimatedShape implements IAnimatedShape {
 
     for (Keyframe kf : keyframes) {
       this.keyframes.add(kf);
-      if (keyframes.indexOf(kf) > 0) {
-        assert prev != null;
+      if (prev != null) {
         this.motions.add(new Motion(prev, kf));
-        prev = kf;
-      } else {
-        prev = keyframes.get(0);
       }
+      prev = kf;
     }
   }
 
@@ -50,14 +70,30 @@ public class AnimatedShape implements IAnimatedShape {
     this.shape = s.copy();
   }
 
+  /**
+   * Constructs a copy of the given animated shape that shares its motions and keyframes.
+   *
+   * @param other the animated shape to be copied
+   */
+  private AnimatedShape(AnimatedShape other) {
+    this.shape = other.getShape();
+    this.motions = other.motions;
+    this.keyframes = other.keyframes;
+    this.isShared = true;
+    other.isShared = true;
+  }
+
   @Override
   public IShape getShape() {
+    if (this.hasUnappliedTick) {
+      this.applyTick(this.unappliedTick);
+    }
     return this.shape.copy();
   }
 
   @Override
   public List<Motion> getMotions() {
-    return this.motions;
+    return Collections.unmodifiableList(this.motions);
   }
 
   @Override
@@ -71,6 +107,11 @@ public class AnimatedShape implements IAnimatedShape {
       System.out.println(motion);
       throw new IllegalArgumentException("Invalid Motion: Teleportation.");
     }
+    if (this.isShared) {
+      this.motions = new ArrayList<>(this.motions);
+      this.keyframes = new ArrayList<>(this.keyframes);
+      this.isShared = false;
+    }
     this.motions.add(motion);
     if (this.keyframes.isEmpty()) {
       this.keyframes.add(motion.getStartKeyframe());
@@ -97,44 +138,167 @@ public class AnimatedShape implements IAnimatedShape {
 
   @Override
   public void applyTick(int tick) {
-    try {
-      this.getMotionAt(tick).applyTick(this.shape, tick);
-    } catch (IllegalArgumentException e) {
+    this.hasUnappliedTick = false;
+    int index = this.indexOfMotionAt(tick);
+    if (index < 0) {
       this.shape.makeInvisible();
+      this.appliedStationaryIndex = -1;
+    } else if (index != this.appliedStationaryIndex) {
+      // A stationary motion that is already applied does not change the shape
+      Motion motion = this.motions.get(index);
+      motion.applyTick(this.shape, tick);
+      this.appliedStationaryIndex = motion.isStationary() ? index : -1;
     }
   }
 
+  @Override
+  public void applyTick(int tick, Frame frame, int index) {
+    int type = this.shape.isOval() ? Frame.OVAL : Frame.RECTANGLE;
+    int motionIndex = this.indexOfMotionAt(tick);
+    if (motionIndex >= 0) {
+      this.motions.get(motionIndex).writeFrame(frame, index, type, tick);
+    } else {
+      frame.setInvisible(index, type);
+    }
+    this.unappliedTick = tick;
+    this.hasUnappliedTick = true;
+  }
+
   /**
-   * Returns the motion that is applied to the shape at the given tick.
+   * Returns the index of the first motion that occurs at the given tick. Since the motions of a
+   * shape cannot teleport, the list of motions is sorted by their start ticks as well as by their
+   * end ticks. The motion found by the previous lookup and the one after it are checked first,
+   * which is the common case when the animation is played forward, before falling back to a binary
+   * search.
    *
-   * @param tick the tick to be applied
-   * @return the motion that is applied to the shape at the given tick
+   * @param tick the tick
+   * @return the index of the first motion that occurs at the tick, or -1 if there is none
    */
-  private Motion getMotionAt(int tick) {
-    for (Motion motion : this.motions) {
-      if (motion.occursAt(tick)) {
-        return motion;
+  private int indexOfMotionAt(int tick) {
+    if (this.motions.isEmpty() || tick < this.motions.get(0).getStartTick()
+        || tick > this.getLastMotion().getEndTick()) {
+      return -1;
+    }
+    this.motionLookups++;
+    int last = this.lastMotionIndex;
+    if (this.isFirstMotionAt(last, tick)) {
+      return last;
+    }
+    if (this.isFirstMotionAt(last + 1, tick)) {
+      this.lastMotionIndex = last + 1;
+      return last + 1;
+    }
+    // Find the first motion that ends at or after the tick
+    this.motionLookupMisses++;
+    int low = 0;
+    int high = this.motions.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (this.motions.get(mid).getEndTick() < tick) {
+        low = mid + 1;
+      } else {
+        high = mid;
       }
     }
-    throw new IllegalArgumentException("No motion occurs at tick: " + tick);
+    if (this.motions.get(low).getStartTick() > tick) {
+      return -1;
+    }
+    this.lastMotionIndex = low;
+    return low;
+  }
+
+  /**
+   * Returns the number of times the motion of this shape at a tick was looked up.
+   *
+   * @return the number of lookups
+   */
+  long getMotionLookups() {
+    return this.motionLookups;
+  }
+
+  /**
+   * Returns the number of lookups of the motion of this shape at a tick that did not find it next
+   * to the motion found by the previous lookup, and had to search the motions.
+   *
+   * @return the number of lookups that searched the motions
+   */
+  long getMotionLookupMisses() {
+    return this.motionLookupMisses;
+  }
+
+  /**
+   * Determines whether the motion at the given index is the first motion that occurs at the given
+   * tick.
+   *
+   * @param index the index of the motion
+   * @param tick  the tick
+   * @return true if the motion at the index is the first one to occur at the tick, false otherwise
+   */
+  private boolean isFirstMotionAt(int index, int tick) {
+    return index < this.motions.size() && this.motions.get(index).occursAt(tick)
+        && (index == 0 || this.motions.get(index - 1).getEndTick() < tick);
+  }
+
+  /**
+   * Returns the keyframe of the shape at the given tick. The keyframes are sorted by their ticks,
+   * so the keyframe is found with a binary search.
+   *
+   * @param tick the tick
+   * @return the first keyframe at the given tick, or null if there is none
+   */
+  private Keyframe getKeyframeAt(int tick) {
+    int low = 0;
+    int high = this.keyframes.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (this.keyframes.get(mid).getTick() < tick) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    if (low < this.keyframes.size() && this.keyframes.get(low).getTick() == tick) {
+      return this.keyframes.get(low);
+    }
+    return null;
   }
 
   @Override
   public IShape getShapeAt(int tick) {
     IShape copy = this.shape.copy();
-    try {
-      for (Keyframe kf : this.keyframes) {
-        if (kf.getTick() == tick) {
-          IShape clone = shape.copy();
-          clone.applyKeyframe(kf);
-          return clone;
-        }
-      }
-      return this.getMotionAt(tick).getShapeAt(this.shape, tick);
-    } catch (IllegalArgumentException e) {
-      copy.makeInvisible();
+    Keyframe kf = this.getKeyframeAt(tick);
+    if (kf != null) {
+      copy.applyKeyframe(kf);
       return copy;
     }
+    int index = this.indexOfMotionAt(tick);
+    if (index >= 0) {
+      this.motions.get(index).applyTick(copy, tick);
+    } else {
+      copy.makeInvisible();
+    }
+    return copy;
+  }
+
+  @Override
+  public void writeFrame(Frame frame, int index, int tick) {
+    int type = this.shape.isOval() ? Frame.OVAL : Frame.RECTANGLE;
+    Keyframe kf = this.getKeyframeAt(tick);
+    if (kf != null) {
+      if (kf.getWidth() == -1) {
+        frame.setInvisible(index, type);
+      } else {
+        frame.set(index, type, kf.getLocation().getX(), kf.getLocation().getY(), kf.getWidth(),
+            kf.getHeight(), kf.getColor().getR(), kf.getColor().getG(), kf.getColor().getB());
+      }
+      return;
+    }
+    int motionIndex = this.indexOfMotionAt(tick);
+    if (motionIndex >= 0) {
+      this.motions.get(motionIndex).writeFrame(frame, index, type, tick);
+    } else {
+      frame.setInvisible(index, type);
+    }
   }
 
   @Override
@@ -149,7 +313,7 @@ public class AnimatedShape implements IAnimatedShape {
 
   @Override
   public IAnimatedShape copy() {
-    return new AnimatedShape(this.shape.copy(), this.keyframes);
+    return new AnimatedShape(this);
   }
 
   @Override
@@ -181,7 +345,7 @@ public class AnimatedShape implements IAnimatedShape {
 
   @Override
   public List<Keyframe> getKeyframes() {
-    return this.keyframes;
+    return Collections.unmodifiableList(this.keyframes);
   }
 
   /**
@@ -5,18 +5,30 @@ import cs5004.animator.model.shapeutil.IShape;
 import cs5004.animator.model.shapeutil.Location;
 import cs5004.animator.model.shapeutil.Oval;
 import cs5004.animator.model.shapeutil.Rectangle;
+import cs5004.animator.monitor.TickEvent;
 import cs5004.animator.util.AnimationBuilder;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * A class implementing the IAnimatorModel interface that represents the model of an animator to
  * create an animation. The model contains a list of animated shape where each shape owns a list of
- * keyframes and a list of motions. The model plays the animation by applying the motions at the
- * given tick to the shapes.
+ * keyframes and a list of motions. The shapes are also indexed by their ids so that they can be
+ * looked up without walking the list, while the list keeps the order in which the shapes are drawn.
+ * The first and last ticks of the animation are kept up to date as shapes and motions are added.
+ * The model plays the animation by applying the motions at the given tick to the shapes. The model
+ * is synchronized, so it can be played and shown while a {@link StreamingBuilder} is still adding
+ * the shapes and motions of the animation from another thread.
  */
 public class AnimatorModel implements IAnimatorModel {
 
@@ -24,15 +36,49 @@ public class AnimatorModel implements IAnimatorModel {
   private static int DEFAULT_HEIGHT = 500;
   private static int DEFAULT_XPOS = 200;
   private static int DEFAULT_YPOS = 200;
+  /**
+   * The default number of alive shapes at and above which a tick is applied to the shapes in
+   * parallel. It was chosen with the ParallelApplyTickBenchmark of the bench module: splitting a
+   * tick into tasks costs less than 20 microseconds, while a tick of 2048 alive shapes takes about
+   * 230 microseconds on a single thread.
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 2048;
+  // Rough sizes in bytes used to estimate the memory of a model, assuming a 64-bit virtual machine
+  // with compressed references: a shape with its state, lists and entry in the map of ids, a motion
+  // or keyframe with its location and color, a slot of a frame, and a slot of the timeline
+  private static final int SHAPE_BYTES = 200;
+  private static final int MOTION_BYTES = 100;
+  private static final int KEYFRAME_BYTES = 80;
+  private static final int FRAME_SLOT_BYTES = 30;
+  private static final int TIMELINE_SLOT_BYTES = 24;
+  // Number of frames held by the frame buffer
+  private static final int FRAME_COUNT = 3;
   private int tick = 1;
+  private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+  // Bounds of the animation, the first tick is Integer.MAX_VALUE while no shape has a motion
+  private int firstTick = Integer.MAX_VALUE;
+  private int lastTick = 1;
 
   private final List<IAnimatedShape> shapes;
+  // The first shape added with each id, and whether an id was given to several shapes by a
+  // builder, in which case motions added to that id are added to all of them
+  private final Map<String, IAnimatedShape> shapesById;
+  private boolean hasDuplicateIds = false;
+  // Built from the shapes when a tick is applied, and discarded whenever the shapes change
+  private ShapeTimeline timeline;
+  private final FrameBuffer frames = new FrameBuffer();
+  // Number of ticks applied, and of timelines built to apply them
+  private long ticksApplied = 0;
+  private long timelineBuilds = 0;
+  // The builder still adding shapes and motions to this model, or null once the model is loaded
+  private volatile StreamingBuilder loader = null;
 
   /**
    * Constructs an empty animator model and initializes the lists of animated shapes.
    */
   public AnimatorModel() {
     this.shapes = new ArrayList<>();
+    this.shapesById = new LinkedHashMap<>();
   }
 
   /**
@@ -40,7 +86,10 @@ public class AnimatorModel implements IAnimatorModel {
    * shapes.
    */
   public AnimatorModel(int width, int height, int x, int y, List<IAnimatedShape> shapes) {
-    this.shapes = shapes;
+    this();
+    for (IAnimatedShape s : shapes) {
+      this.insertShape(s);
+    }
     DEFAULT_WIDTH = width;
     DEFAULT_HEIGHT = height;
     DEFAULT_XPOS = x;
@@ -57,6 +106,10 @@ public class AnimatorModel implements IAnimatorModel {
     private int x = DEFAULT_XPOS;
     private int y = DEFAULT_YPOS;
     List<IAnimatedShape> shapes = new ArrayList<>();
+    // The first shape declared with each name, and whether a name was declared more than once, in
+    // which case its motions are added to every shape declared with it
+    private final Map<String, IAnimatedShape> shapesByName = new HashMap<>();
+    private boolean hasDuplicateNames = false;
 
     @Override
     public AnimatorModel build() {
@@ -77,8 +130,11 @@ public class AnimatorModel implements IAnimatorModel {
 
     @Override
     public AnimationBuilder<IAnimatorModel> declareShape(String name, String type) {
-      IShape s = type.equals("ellipse") ? new Oval(name) : new Rectangle(name);
-      shapes.add(new AnimatedShape(s));
+      IAnimatedShape s = new AnimatedShape(createShape(name, type));
+      shapes.add(s);
+      if (this.shapesByName.putIfAbsent(name, s) != null) {
+        this.hasDuplicateNames = true;
+      }
       return this;
     }
 
@@ -92,11 +148,18 @@ public class AnimatorModel implements IAnimatorModel {
     }
 
     private AnimationBuilder<IAnimatorModel> addMotionHelper(String name, Motion m) {
-      if (m.getStartTick() == m.getEndTick() && !m.isTeleportedFrom(m)) {
+      if (isIgnored(m)) {
         return this;
       }
-      for (IAnimatedShape s : this.shapes) {
-        if (s.getId().equals(name)) {
+      if (this.hasDuplicateNames) {
+        for (IAnimatedShape s : this.shapes) {
+          if (s.getId().equals(name)) {
+            s.addMotion(m);
+          }
+        }
+      } else {
+        IAnimatedShape s = this.shapesByName.get(name);
+        if (s != null) {
           s.addMotion(m);
         }
       }
@@ -104,23 +167,242 @@ public class AnimatorModel implements IAnimatorModel {
     }
   }
 
+  /**
+   * Builder for the animator model that adds the shapes and motions to the model while they are
+   * read, instead of building the model at the end. The model is meant to be shown and played by
+   * other threads while it is loading: {@link #awaitModel} returns it as soon as its canvas is
+   * known, and it reports that it is loading until {@link #build} or {@link #fail} is called.
+   * Loading stops with a {@link CancellationException} if the model is cleared in the meantime.
+   *
+   * <p>Every change to the shapes discards the timeline the model plays them with, and the next
+   * tick builds it again in O(n log n). The shapes and motions are therefore added in batches of at
+   * least {@link #MIN_BATCH_SIZE}, and of at least an eighth of what was already added, so playing
+   * the model while it loads rebuilds its timeline at most once per batch and a logarithmic number
+   * of times in total.</p>
+   */
+  public static final class StreamingBuilder implements AnimationBuilder<IAnimatorModel> {
+
+    /**
+     * The smallest number of shapes and motions added to the model at once while it is loading.
+     */
+    public static final int MIN_BATCH_SIZE = 1024;
+
+    private final AnimatorModel model = new AnimatorModel();
+    private final CountDownLatch canvasKnown = new CountDownLatch(1);
+    private RuntimeException failure = null;
+    private boolean isModelReturned = false;
+    // Shapes and motions read but not added to the model yet, and the number already added
+    private final List<Runnable> pending = new ArrayList<>();
+    private long addedCount = 0;
+
+    /**
+     * Constructs a builder for a new empty model, which is loading until the builder is done.
+     */
+    public StreamingBuilder() {
+      this.model.loader = this;
+    }
+
+    @Override
+    public AnimatorModel build() {
+      this.flush();
+      this.finish();
+      return this.model;
+    }
+
+    /**
+     * Waits until the canvas of the animation is known, or until loading ended, and returns the
+     * model being built.
+     *
+     * @return the model
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @throws RuntimeException     the exception passed to {@link #fail} if loading failed before
+     *                              the canvas was known
+     */
+    public IAnimatorModel awaitModel() throws InterruptedException {
+      this.canvasKnown.await();
+      synchronized (this) {
+        this.isModelReturned = true;
+        if (this.failure != null) {
+          throw this.failure;
+        }
+      }
+      return this.model;
+    }
+
+    /**
+     * Stops loading the model because reading the animation failed. The shapes and motions read
+     * before the failure are kept. The failure is thrown by {@link #awaitModel} unless the model
+     * was already returned, in which case the caller is left to report it.
+     *
+     * @param failure the reason loading failed
+     * @return true if the model was already returned by {@link #awaitModel}, false otherwise
+     */
+    public boolean fail(RuntimeException failure) {
+      boolean isReturned;
+      synchronized (this) {
+        this.failure = failure;
+        isReturned = this.isModelReturned;
+      }
+      try {
+        this.flush();
+      } catch (CancellationException e) {
+        // The model was cleared, so there is nothing left to keep
+      }
+      this.finish();
+      return isReturned;
+    }
+
+    @Override
+    public AnimationBuilder<IAnimatorModel> setBounds(int x, int y, int width, int height) {
+      if (width < 0 || height < 0) {
+        throw new IllegalArgumentException("Width and height must be positive");
+      }
+      synchronized (this.model) {
+        this.checkLoading();
+        DEFAULT_XPOS = x;
+        DEFAULT_YPOS = y;
+        DEFAULT_WIDTH = width;
+        DEFAULT_HEIGHT = height;
+      }
+      this.canvasKnown.countDown();
+      return this;
+    }
+
+    @Override
+    public AnimationBuilder<IAnimatorModel> declareShape(String name, String type) {
+      this.checkLoading();
+      IAnimatedShape s = new AnimatedShape(createShape(name, type));
+      this.add(() -> this.model.insertShape(s));
+      return this;
+    }
+
+    @Override
+    public AnimationBuilder<IAnimatorModel> addMotion(String name, int t1, int x1, int y1,
+        int w1, int h1, int r1, int g1, int b1, int t2, int x2, int y2, int w2, int h2, int r2,
+        int g2, int b2) {
+      Motion m = new Motion(new Location(x1, y1), new Location(x2, y2), w1, w2, h1, h2,
+          new Color(r1, g1, b1), new Color(r2, g2, b2), t1, t2);
+      if (isIgnored(m)) {
+        return this;
+      }
+      this.checkLoading();
+      this.add(() -> this.model.addMotion(name, m));
+      return this;
+    }
+
+    /**
+     * Adds a shape or motion to the model with the next batch, and adds the batch if it is full.
+     *
+     * @param change the change to the model
+     * @throws CancellationException if the model was cleared since loading started
+     */
+    private void add(Runnable change) {
+      this.pending.add(change);
+      if (this.pending.size() >= Math.max(MIN_BATCH_SIZE, this.addedCount / 8)) {
+        this.flush();
+      }
+    }
+
+    /**
+     * Adds the shapes and motions read since the last batch to the model at once.
+     *
+     * @throws CancellationException if the model was cleared since loading started
+     */
+    private void flush() {
+      if (this.pending.isEmpty()) {
+        return;
+      }
+      synchronized (this.model) {
+        this.checkLoading();
+        for (Runnable change : this.pending) {
+          change.run();
+        }
+      }
+      this.addedCount += this.pending.size();
+      this.pending.clear();
+    }
+
+    /**
+     * Ensures that the model is still loaded by this builder.
+     *
+     * @throws CancellationException if the model was cleared since loading started
+     */
+    private void checkLoading() {
+      if (this.model.loader != this) {
+        throw new CancellationException("The model was cleared while loading");
+      }
+    }
+
+    /**
+     * Marks the model as loaded, and releases the threads waiting for it.
+     */
+    private void finish() {
+      synchronized (this.model) {
+        if (this.model.loader == this) {
+          this.model.loader = null;
+        }
+      }
+      this.canvasKnown.countDown();
+    }
+  }
+
+  /**
+   * Creates the shape declared with the given name and type in an animation file.
+   *
+   * @param name the name of the shape
+   * @param type the type of the shape, an ellipse or otherwise a rectangle
+   * @return the shape
+   */
+  private static IShape createShape(String name, String type) {
+    return type.equals("ellipse") ? new Oval(name) : new Rectangle(name);
+  }
+
+  /**
+   * Returns whether a motion read from an animation file is left out of the animation, which is
+   * the case of a motion that lasts no time without being a teleport.
+   *
+   * @param m the motion
+   * @return true if the motion is left out, false otherwise
+   */
+  private static boolean isIgnored(Motion m) {
+    return m.getStartTick() == m.getEndTick() && !m.isTeleportedFrom(m);
+  }
+
   @Override
-  public void addMotion(String id, Motion motion) {
+  public synchronized void addMotion(String id, Motion motion) {
     Objects.requireNonNull(motion);
     if (id == null) {
       throw new IllegalArgumentException("ID cannot be null");
     }
-    for (IAnimatedShape s : this.shapes) {
-      if (id.equals(s.getId())) {
+    boolean isAdded = false;
+    if (this.hasDuplicateIds) {
+      for (IAnimatedShape s : this.shapes) {
+        if (id.equals(s.getId())) {
+          s.addMotion(motion);
+          isAdded = true;
+        }
+      }
+    } else {
+      IAnimatedShape s = this.shapesById.get(id);
+      if (s != null) {
         s.addMotion(motion);
+        isAdded = true;
       }
     }
+    if (isAdded) {
+      this.firstTick = Math.min(this.firstTick, motion.getStartTick());
+      this.lastTick = Math.max(this.lastTick, motion.getEndTick());
+      this.timeline = null;
+    }
   }
 
   @Override
-  public void addShape(IShape shape) {
+  public synchronized void addShape(IShape shape) {
     validateAddShape(shape);
-    this.shapes.add(new AnimatedShape(shape));
+    IAnimatedShape s = new AnimatedShape(shape);
+    this.shapes.add(s);
+    this.shapesById.put(s.getId(), s);
+    this.timeline = null;
   }
 
   /**
@@ -130,41 +412,117 @@ public class AnimatorModel implements IAnimatorModel {
    */
   private void validateAddShape(IShape shape) {
     Objects.requireNonNull(shape);
-    for (IAnimatedShape s : this.shapes) {
-      if (s.getId().equals(shape.getId())) {
-        throw new IllegalArgumentException("Invalid ID: ID already exists.");
-      }
+    if (this.shapesById.containsKey(shape.getId())) {
+      throw new IllegalArgumentException("Invalid ID: ID already exists.");
     }
   }
 
   @Override
-  public void applyTick(int tick) {
+  public synchronized void applyTick(int tick) {
+    TickEvent event = new TickEvent();
+    event.begin();
     this.tick = tick;
-    for (IAnimatedShape shape : this.shapes) {
-      shape.applyTick(tick);
+    this.ticksApplied++;
+    if (this.timeline == null) {
+      this.timeline = new ShapeTimeline(this.shapes, this.parallelThreshold);
+      this.timelineBuilds++;
+    }
+    this.timeline.applyTick(tick, this.frames);
+    Frame frame = this.frames.getBackFrame();
+    event.end();
+    if (event.shouldCommit()) {
+      event.tick = tick;
+      event.shapes = frame.getSize();
+      for (int i = 0; i < frame.getSize(); i++) {
+        if (frame.isVisible(i)) {
+          event.visibleShapes++;
+        }
+      }
+      event.commit();
+    }
+    this.frames.publish();
+  }
+
+  /**
+   * Sets the number of shapes alive at a tick at and above which the tick is applied to the shapes
+   * in parallel on the common fork-join pool. Below the threshold, the shapes are updated
+   * sequentially on the calling thread.
+   *
+   * @param threshold the number of alive shapes, or {@link Integer#MAX_VALUE} to never apply
+   *                  ticks in parallel
+   * @throws IllegalArgumentException if the threshold is negative
+   */
+  public synchronized void setParallelThreshold(int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("Threshold cannot be negative");
     }
+    this.parallelThreshold = threshold;
+    this.timeline = null;
   }
 
   @Override
-  public void addAnimatedShape(IAnimatedShape animatedShape) {
+  public synchronized void addAnimatedShape(IAnimatedShape animatedShape) {
     if (animatedShape == null) {
       throw new IllegalArgumentException("Animated Shape cannot be null");
     }
-    for (IAnimatedShape as : this.getAnimatedShapes()) {
-      if (Objects.equals(as.getId(), animatedShape.getId())) {
-        throw new IllegalArgumentException("Can't add a duplicate shape");
-      }
+    if (this.shapesById.containsKey(animatedShape.getId())) {
+      throw new IllegalArgumentException("Can't add a duplicate shape");
     }
+    this.insertShape(animatedShape);
+  }
+
+  /**
+   * Adds the given animated shape after the shapes of the model, even if another shape has the
+   * same id. Builders add the shapes they read this way, since an animation file may declare the
+   * same name more than once.
+   *
+   * @param animatedShape the animated shape to be added
+   */
+  private synchronized void insertShape(IAnimatedShape animatedShape) {
     this.shapes.add(animatedShape);
+    if (this.shapesById.putIfAbsent(animatedShape.getId(), animatedShape) != null) {
+      this.hasDuplicateIds = true;
+    }
+    if (!animatedShape.getMotions().isEmpty()) {
+      this.firstTick = Math.min(this.firstTick, animatedShape.getFirstTick());
+    }
+    this.lastTick = Math.max(this.lastTick, animatedShape.getLastTick());
+    this.timeline = null;
+  }
+
+  @Override
+  public synchronized void clear() {
+    this.loader = null;
+    this.shapes.clear();
+    this.shapesById.clear();
+    this.hasDuplicateIds = false;
+    this.firstTick = Integer.MAX_VALUE;
+    this.lastTick = 1;
+    this.timeline = null;
   }
 
   @Override
-  public void clear() {
-    this.shapes.removeAll(shapes);
+  public synchronized void setAnimatedShapes(List<IAnimatedShape> animatedShapes) {
+    if (animatedShapes == null) {
+      throw new IllegalArgumentException("Animated Shapes cannot be null");
+    }
+    Set<String> ids = new HashSet<>();
+    for (IAnimatedShape s : animatedShapes) {
+      if (s == null) {
+        throw new IllegalArgumentException("Animated Shape cannot be null");
+      }
+      if (!ids.add(s.getId())) {
+        throw new IllegalArgumentException("Can't add a duplicate shape");
+      }
+    }
+    this.clear();
+    for (IAnimatedShape s : animatedShapes) {
+      this.addAnimatedShape(s);
+    }
   }
 
   @Override
-  public List<IShape> getShapes() {
+  public synchronized List<IShape> getShapes() {
     List<IShape> shapes = new ArrayList<>();
     for (IAnimatedShape s : this.shapes) {
       shapes.add(s.getShape().copy());
@@ -173,27 +531,25 @@ public class AnimatorModel implements IAnimatorModel {
   }
 
   @Override
-  public IShape getShape(String id) {
-    for (IAnimatedShape shape : this.shapes) {
-      if (shape.getId().equals(id)) {
-        return shape.getShape();
-      }
+  public synchronized IShape getShape(String id) {
+    IAnimatedShape shape = this.shapesById.get(id);
+    if (shape == null) {
+      throw new IllegalArgumentException("No shape with id=" + id + " exists");
     }
-    throw new IllegalArgumentException("No shape with id=" + id + " exists");
+    return shape.getShape();
   }
 
   @Override
-  public IShape getShapeAt(String id, int tick) {
-    for (IAnimatedShape s : this.shapes) {
-      if (s.getId().equals(id)) {
-        return s.getShapeAt(tick);
-      }
+  public synchronized IShape getShapeAt(String id, int tick) {
+    IAnimatedShape s = this.shapesById.get(id);
+    if (s == null) {
+      throw new IllegalArgumentException("No such shape exists at tick=" + tick);
     }
-    throw new IllegalArgumentException("No such shape exists at tick=" + tick);
+    return s.getShapeAt(tick);
   }
 
   @Override
-  public List<IShape> getShapesAt(int tick) {
+  public synchronized List<IShape> getShapesAt(int tick) {
     List<IShape> shapes = new ArrayList<>();
     for (IAnimatedShape shape : this.shapes) {
       shapes.add(shape.getShapeAt(tick));
@@ -202,7 +558,23 @@ public class AnimatorModel implements IAnimatorModel {
   }
 
   @Override
-  public List<IAnimatedShape> getAnimatedShapes() {
+  public synchronized void fillFrame(int tick, Frame frame) {
+    if (frame == null) {
+      throw new IllegalArgumentException("Frame cannot be null");
+    }
+    frame.reset(tick, this.shapes.size());
+    for (int i = 0; i < this.shapes.size(); i++) {
+      this.shapes.get(i).writeFrame(frame, i, tick);
+    }
+  }
+
+  @Override
+  public Frame getPublishedFrame() {
+    return this.frames.acquire();
+  }
+
+  @Override
+  public synchronized List<IAnimatedShape> getAnimatedShapes() {
     List<IAnimatedShape> copy = new ArrayList<>();
     for (IAnimatedShape s : this.shapes) {
       copy.add(s.copy());
@@ -211,16 +583,45 @@ public class AnimatorModel implements IAnimatorModel {
   }
 
   @Override
-  public int getLastTick() {
-    int tick = 1;
+  public synchronized int getFirstTick() {
+    return this.firstTick == Integer.MAX_VALUE ? 1 : this.firstTick;
+  }
+
+  @Override
+  public synchronized int getLastTick() {
+    return this.lastTick;
+  }
+
+  @Override
+  public boolean isLoading() {
+    return this.loader != null;
+  }
+
+  @Override
+  public synchronized ModelStatistics getStatistics() {
+    int motionCount = 0;
+    int keyframeCount = 0;
+    long motionLookups = 0;
+    long motionLookupMisses = 0;
     for (IAnimatedShape s : this.shapes) {
-      tick = Math.max(s.getLastTick(), tick);
+      motionCount += s.getMotions().size();
+      keyframeCount += s.getKeyframes().size();
+      if (s instanceof AnimatedShape) {
+        motionLookups += ((AnimatedShape) s).getMotionLookups();
+        motionLookupMisses += ((AnimatedShape) s).getMotionLookupMisses();
+      }
     }
-    return tick;
+    int n = this.shapes.size();
+    long modelBytes = (long) n * SHAPE_BYTES + (long) motionCount * MOTION_BYTES
+        + (long) keyframeCount * KEYFRAME_BYTES;
+    long frameBytes = (long) FRAME_COUNT * Math.max(16, n) * FRAME_SLOT_BYTES
+        + (this.timeline == null ? 0 : (long) n * TIMELINE_SLOT_BYTES);
+    return new ModelStatistics(n, motionCount, keyframeCount, this.ticksApplied,
+        this.timelineBuilds, motionLookups, motionLookupMisses, modelBytes, frameBytes);
   }
 
   @Override
-  public int getTick() {
+  public synchronized int getTick() {
     return this.tick;
   }
 
@@ -245,7 +646,7 @@ public class AnimatorModel implements IAnimatorModel {
   }
 
   @Override
-  public String toString() {
+  public synchronized String toString() {
     List<String> createShapeStrings = new ArrayList<>();
     List<String> motionStrings = new ArrayList<>();
     for (IAnimatedShape s : this.shapes) {
@@ -0,0 +1,298 @@
+package cs5004.animator.model;
+
+import java.util.Arrays;
+
+/**
+ * Represents a read-only snapshot of the shapes of an animation at a specific tick. The state of
+ * the shapes is stored in primitive arrays indexed by the position of the shape in the animation,
+ * so a frame can be filled again for another tick without allocating anything once its arrays are
+ * large enough. Frames are owned by the caller and are filled by {@link IAnimatorModel#fillFrame}.
+ */
+public final class Frame {
+
+  /**
+   * The type of a shape that is a rectangle.
+   */
+  public static final int RECTANGLE = 0;
+
+  /**
+   * The type of a shape that is an oval.
+   */
+  public static final int OVAL = 1;
+
+  private int tick = 0;
+  private int size = 0;
+  // Increases every time the frame is published by a FrameBuffer
+  private volatile long sequence = 0;
+  private int[] x;
+  private int[] y;
+  private int[] width;
+  private int[] height;
+  private int[] rgb;
+  private int[] type;
+  private boolean[] visible;
+  // Positions of the shapes that may have changed since a ShapeTimeline last filled this frame,
+  // each listed once, unless every shape has to be written again
+  private int[] stale = new int[0];
+  private boolean[] isStale = new boolean[0];
+  private int staleCount = 0;
+  private boolean isAllStale = true;
+
+  /**
+   * Constructs an empty frame.
+   */
+  public Frame() {
+    this(16);
+  }
+
+  /**
+   * Constructs an empty frame that can hold the given number of shapes before growing.
+   *
+   * @param capacity the number of shapes
+   * @throws IllegalArgumentException if the capacity is negative
+   */
+  public Frame(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative");
+    }
+    this.x = new int[capacity];
+    this.y = new int[capacity];
+    this.width = new int[capacity];
+    this.height = new int[capacity];
+    this.rgb = new int[capacity];
+    this.type = new int[capacity];
+    this.visible = new boolean[capacity];
+  }
+
+  /**
+   * Returns the tick this frame was filled for.
+   *
+   * @return the tick of the frame
+   */
+  public int getTick() {
+    return this.tick;
+  }
+
+  /**
+   * Returns the number of shapes in this frame.
+   *
+   * @return the number of shapes
+   */
+  public int getSize() {
+    return this.size;
+  }
+
+  /**
+   * Returns the x coordinate of the shape at the given position.
+   *
+   * @param i the position of the shape
+   * @return the x coordinate
+   */
+  public int getX(int i) {
+    return this.x[i];
+  }
+
+  /**
+   * Returns the y coordinate of the shape at the given position.
+   *
+   * @param i the position of the shape
+   * @return the y coordinate
+   */
+  public int getY(int i) {
+    return this.y[i];
+  }
+
+  /**
+   * Returns the width of the shape at the given position.
+   *
+   * @param i the position of the shape
+   * @return the width
+   */
+  public int getWidth(int i) {
+    return this.width[i];
+  }
+
+  /**
+   * Returns the height of the shape at the given position.
+   *
+   * @param i the position of the shape
+   * @return the height
+   */
+  public int getHeight(int i) {
+    return this.height[i];
+  }
+
+  /**
+   * Returns the color of the shape at the given position packed as 0xRRGGBB.
+   *
+   * @param i the position of the shape
+   * @return the packed color
+   */
+  public int getRgb(int i) {
+    return this.rgb[i];
+  }
+
+  /**
+   * Returns the type of the shape at the given position, either {@link #RECTANGLE} or
+   * {@link #OVAL}.
+   *
+   * @param i the position of the shape
+   * @return the type of the shape
+   */
+  public int getType(int i) {
+    return this.type[i];
+  }
+
+  /**
+   * Returns whether the shape at the given position is visible in this frame. The other properties
+   * of an invisible shape are meaningless.
+   *
+   * @param i the position of the shape
+   * @return true if the shape is visible, false otherwise
+   */
+  public boolean isVisible(int i) {
+    return this.visible[i];
+  }
+
+  /**
+   * Returns the number of frames published before and including this one, or 0 if this frame was
+   * never published. Since published frames are reused, a view compares this number to tell
+   * whether the frame it is given changed since it last read it.
+   *
+   * @return the publication sequence number of this frame
+   */
+  public long getSequence() {
+    return this.sequence;
+  }
+
+  /**
+   * Sets the publication sequence number of this frame.
+   *
+   * @param sequence the publication sequence number
+   */
+  void setSequence(long sequence) {
+    this.sequence = sequence;
+  }
+
+  /**
+   * Clears the frame and prepares it to hold the given number of shapes at the given tick, growing
+   * the arrays if needed.
+   *
+   * @param tick the tick of the frame
+   * @param size the number of shapes
+   */
+  void reset(int tick, int size) {
+    if (size > this.x.length) {
+      int capacity = Math.max(size, this.x.length * 2);
+      this.x = Arrays.copyOf(this.x, capacity);
+      this.y = Arrays.copyOf(this.y, capacity);
+      this.width = Arrays.copyOf(this.width, capacity);
+      this.height = Arrays.copyOf(this.height, capacity);
+      this.rgb = Arrays.copyOf(this.rgb, capacity);
+      this.type = Arrays.copyOf(this.type, capacity);
+      this.visible = Arrays.copyOf(this.visible, capacity);
+    }
+    this.tick = tick;
+    this.size = size;
+  }
+
+  /**
+   * Marks the shape at the given position as changed since this frame was last filled.
+   *
+   * @param i the position of the shape
+   */
+  void markStale(int i) {
+    if (this.isAllStale) {
+      return;
+    }
+    if (i >= this.isStale.length) {
+      int capacity = Math.max(i + 1, this.isStale.length * 2);
+      this.stale = Arrays.copyOf(this.stale, capacity);
+      this.isStale = Arrays.copyOf(this.isStale, capacity);
+    }
+    if (!this.isStale[i]) {
+      this.isStale[i] = true;
+      this.stale[this.staleCount++] = i;
+    }
+  }
+
+  /**
+   * Marks every shape as changed since this frame was last filled.
+   */
+  void markAllStale() {
+    this.isAllStale = true;
+  }
+
+  /**
+   * Returns whether every shape has to be written again the next time this frame is filled.
+   *
+   * @return true if every shape may have changed, false if only the ones marked did
+   */
+  boolean isAllStale() {
+    return this.isAllStale;
+  }
+
+  /**
+   * Returns the number of shapes marked as changed since this frame was last filled.
+   *
+   * @return the number of shapes marked
+   */
+  int getStaleCount() {
+    return this.staleCount;
+  }
+
+  /**
+   * Returns the position of a shape marked as changed since this frame was last filled.
+   *
+   * @param k the rank of the mark, from 0 to {@link #getStaleCount()} excluded
+   * @return the position of the shape
+   */
+  int getStale(int k) {
+    return this.stale[k];
+  }
+
+  /**
+   * Forgets the shapes marked as changed, once this frame is filled.
+   */
+  void clearStale() {
+    for (int k = 0; k < this.staleCount; k++) {
+      this.isStale[this.stale[k]] = false;
+    }
+    this.staleCount = 0;
+    this.isAllStale = false;
+  }
+
+  /**
+   * Sets the state of the visible shape at the given position.
+   *
+   * @param i      the position of the shape
+   * @param type   the type of the shape
+   * @param x      the x coordinate
+   * @param y      the y coordinate
+   * @param width  the width
+   * @param height the height
+   * @param r      the red value of the color
+   * @param g      the green value of the color
+   * @param b      the blue value of the color
+   */
+  void set(int i, int type, int x, int y, int width, int height, int r, int g, int b) {
+    this.type[i] = type;
+    this.x[i] = x;
+    this.y[i] = y;
+    this.width[i] = width;
+    this.height[i] = height;
+    this.rgb[i] = (r << 16) | (g << 8) | b;
+    this.visible[i] = true;
+  }
+
+  /**
+   * Marks the shape at the given position as invisible.
+   *
+   * @param i    the position of the shape
+   * @param type the type of the shape
+   */
+  void setInvisible(int i, int type) {
+    this.type[i] = type;
+    this.visible[i] = false;
+  }
+}
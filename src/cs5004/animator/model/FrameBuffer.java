@@ -0,0 +1,78 @@
+package cs5004.animator.model;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Represents the frames exchanged between the thread that applies ticks to the model and the thread
+ * that renders them. The writer fills a back frame that the reader never sees, then publishes it
+ * by atomically swapping it with the ready frame. The reader swaps the ready frame with its own
+ * front frame when a newer one was published. Since writer and reader never hold the same frame,
+ * neither of them waits for the other and the reader never sees a frame that is half written.
+ *
+ * <p>Since a frame is filled again a few ticks after it was last filled, the writer marks the
+ * shapes that changed in every frame, so that only those and the shapes that are alive have to be
+ * written again.</p>
+ *
+ * <p>There must be a single writer and a single reader at a time.</p>
+ */
+final class FrameBuffer {
+
+  private final AtomicReference<Frame> ready = new AtomicReference<>(new Frame());
+  // Owned by the writer
+  private Frame back = new Frame();
+  private long published = 0;
+  // Owned by the reader
+  private Frame front = new Frame();
+  // Every frame, in no particular order, whose marks of changed shapes are owned by the writer
+  private final Frame[] all = {this.ready.get(), this.back, this.front};
+
+  /**
+   * Returns the frame the writer fills before publishing it.
+   *
+   * @return the back frame
+   */
+  Frame getBackFrame() {
+    return this.back;
+  }
+
+  /**
+   * Marks the shape at the given position as changed in every frame.
+   *
+   * @param i the position of the shape
+   */
+  void markStale(int i) {
+    for (Frame frame : this.all) {
+      frame.markStale(i);
+    }
+  }
+
+  /**
+   * Marks every shape as changed in every frame.
+   */
+  void markAllStale() {
+    for (Frame frame : this.all) {
+      frame.markAllStale();
+    }
+  }
+
+  /**
+   * Publishes the back frame to the reader and takes another frame to be filled next.
+   */
+  void publish() {
+    this.back.setSequence(++this.published);
+    this.back = this.ready.getAndSet(this.back);
+  }
+
+  /**
+   * Returns the most recently published frame. The frame is not changed by the writer until this
+   * method is called again.
+   *
+   * @return the latest frame
+   */
+  Frame acquire() {
+    if (this.ready.get().getSequence() > this.front.getSequence()) {
+      this.front = this.ready.getAndSet(this.front);
+    }
+    return this.front;
+  }
+}
@@ -27,7 +27,7 @@ public interface IAnimatedShape {
 
   /**
    * Returns the list of {@link Motion} that should be applied to the shape from start to end of the
-   * animation.
+   * animation. The list cannot be modified; use {@link #addMotion} instead.
    *
    * @return the list of motions
    */
@@ -55,6 +55,18 @@ public interface IAnimatedShape {
    */
   void applyTick(int tick);
 
+  /**
+   * Applies the motion at the given tick to the shape, and writes the new state of the shape into
+   * the given position of a frame. The state written is the same as the one written by
+   * {@link #writeFrame}. The shape may be updated lazily, the next time it is read with
+   * {@link #getShape}.
+   *
+   * @param tick  the tick to be applied
+   * @param frame the frame to write to
+   * @param index the position of the shape in the frame
+   */
+  void applyTick(int tick, Frame frame, int index);
+
   /**
    * Returns the shape at the given tick, without actually updating the shape.
    *
@@ -65,6 +77,16 @@ public interface IAnimatedShape {
    */
   IShape getShapeAt(int tick) throws IllegalArgumentException;
 
+  /**
+   * Writes the state of the shape at the given tick into the given position of a frame, without
+   * updating the shape. The state written is the same as the one returned by {@link #getShapeAt}.
+   *
+   * @param frame the frame to write to
+   * @param index the position of the shape in the frame
+   * @param tick  the tick
+   */
+  void writeFrame(Frame frame, int index, int tick);
+
   /**
    * Returns the string representation of the type of the animated shape.
    *
@@ -81,9 +103,10 @@ public interface IAnimatedShape {
   String getShapeAsString(ITextualView view);
 
   /**
-   * Return a deep copy of the animated shape.
+   * Return a copy of the animated shape. The state of the shape is copied, while the immutable
+   * motions and keyframes may be shared with the original until one of them is changed.
    *
-   * @return a deep copy of the animated shape
+   * @return a copy of the animated shape
    */
   IAnimatedShape copy();
 
@@ -111,7 +134,7 @@ public interface IAnimatedShape {
   int getFirstTick();
 
   /**
-   * Returns the list of keyframes in this animation.
+   * Returns the list of keyframes in this animation. The list cannot be modified.
    *
    * @return the list of keyframes
    */
@@ -31,7 +31,8 @@ public interface IAnimatorModel {
   void addShape(IShape shape);
 
   /**
-   * Applies all the motions at the given tick to the shapes.
+   * Applies all the motions at the given tick to the shapes, and publishes the state of the shapes
+   * at that tick as the frame returned by {@link #getPublishedFrame}.
    *
    * @param tick the tick to be applied.
    */
@@ -49,6 +50,15 @@ public interface IAnimatorModel {
    */
   void clear();
 
+  /**
+   * Replaces all the animated shapes of the model with the given ones in a single step, so the
+   * model is never seen empty or partially filled while it is used by other threads.
+   *
+   * @param animatedShapes the animated shapes in the order they are drawn
+   * @throws IllegalArgumentException if a shape is null or two shapes have the same id
+   */
+  void setAnimatedShapes(List<IAnimatedShape> animatedShapes);
+
   /**
    * Returns a deep copy of the list of shapes to be animated in the model.
    *
@@ -81,6 +91,27 @@ public interface IAnimatorModel {
    */
   List<IShape> getShapesAt(int tick);
 
+  /**
+   * Fills the given frame with the state of every shape at the given tick, in the order the shapes
+   * are drawn. The frame is owned by the caller and can be reused for every tick, so filling it
+   * does not create any objects once the frame is large enough to hold all the shapes.
+   *
+   * @param tick  the tick
+   * @param frame the frame to fill
+   * @throws IllegalArgumentException if the frame is null
+   */
+  void fillFrame(int tick, Frame frame);
+
+  /**
+   * Returns the frame published by the most recent call to {@link #applyTick}, or an empty frame if
+   * no tick has been applied yet. The frame is meant to be read by a single rendering thread while
+   * ticks are applied on another one: it is never changed by the model until this method is called
+   * again, and reading it never waits for a tick being applied.
+   *
+   * @return the latest published frame
+   */
+  Frame getPublishedFrame();
+
   /**
    * Returns the list of animated shapes in the model.
    *
@@ -89,12 +120,35 @@ public interface IAnimatorModel {
   List<IAnimatedShape> getAnimatedShapes();
 
   /**
-   * Returns the last tick of this animation.
+   * Returns the first tick of this animation, or 1 if no shape has a motion.
+   *
+   * @return the first tick of this animation
+   */
+  int getFirstTick();
+
+  /**
+   * Returns the last tick of this animation, or 1 if no shape has a motion.
    *
    * @return the last tick of this animation
    */
   int getLastTick();
 
+  /**
+   * Returns the statistics of this model: the size of its animation, how often applying a tick
+   * reused what was computed for the previous tick, and an estimate of the memory it uses.
+   *
+   * @return the statistics of this model
+   */
+  ModelStatistics getStatistics();
+
+  /**
+   * Returns whether shapes and motions are still being added to this model while it is loaded in
+   * the background. The last tick of the animation can grow until the model is loaded.
+   *
+   * @return true if the model is still being loaded, false otherwise
+   */
+  boolean isLoading();
+
   /**
    * Returns the current tick of a running animation.
    *
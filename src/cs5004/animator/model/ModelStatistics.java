@@ -0,0 +1,134 @@
+package cs5004.animator.model;
+
+/**
+ * Represents the statistics of a model at a moment: the size of its animation, how often the ticks
+ * applied to it could reuse what was computed for the previous tick, and an estimate of the memory
+ * it uses. The memory is estimated from the number of objects and array slots held by the model,
+ * assuming a 64-bit virtual machine with compressed references, so it is only an order of
+ * magnitude.
+ */
+public final class ModelStatistics {
+
+  private final int shapeCount;
+  private final int motionCount;
+  private final int keyframeCount;
+  private final long ticksApplied;
+  private final long timelineBuilds;
+  private final long motionLookups;
+  private final long motionLookupMisses;
+  private final long estimatedModelBytes;
+  private final long estimatedFrameBytes;
+
+  /**
+   * Constructs the statistics of a model.
+   *
+   * @param shapeCount          the number of shapes
+   * @param motionCount         the number of motions
+   * @param keyframeCount       the number of keyframes
+   * @param ticksApplied        the number of ticks applied
+   * @param timelineBuilds      the number of times the timeline of the shapes was built
+   * @param motionLookups       the number of times the motion of a shape at a tick was looked up
+   * @param motionLookupMisses  the number of lookups that had to search the motions of the shape
+   * @param estimatedModelBytes the estimated memory used by the shapes, motions and keyframes
+   * @param estimatedFrameBytes the estimated memory used by the frames and the timeline
+   */
+  ModelStatistics(int shapeCount, int motionCount, int keyframeCount, long ticksApplied,
+      long timelineBuilds, long motionLookups, long motionLookupMisses, long estimatedModelBytes,
+      long estimatedFrameBytes) {
+    this.shapeCount = shapeCount;
+    this.motionCount = motionCount;
+    this.keyframeCount = keyframeCount;
+    this.ticksApplied = ticksApplied;
+    this.timelineBuilds = timelineBuilds;
+    this.motionLookups = motionLookups;
+    this.motionLookupMisses = motionLookupMisses;
+    this.estimatedModelBytes = estimatedModelBytes;
+    this.estimatedFrameBytes = estimatedFrameBytes;
+  }
+
+  /**
+   * Returns the number of shapes in the model.
+   *
+   * @return the number of shapes
+   */
+  public int getShapeCount() {
+    return this.shapeCount;
+  }
+
+  /**
+   * Returns the number of motions of all the shapes in the model.
+   *
+   * @return the number of motions
+   */
+  public int getMotionCount() {
+    return this.motionCount;
+  }
+
+  /**
+   * Returns the number of keyframes of all the shapes in the model.
+   *
+   * @return the number of keyframes
+   */
+  public int getKeyframeCount() {
+    return this.keyframeCount;
+  }
+
+  /**
+   * Returns the number of ticks applied to the model.
+   *
+   * @return the number of ticks applied
+   */
+  public long getTicksApplied() {
+    return this.ticksApplied;
+  }
+
+  /**
+   * Returns the ratio of the ticks applied that reused the timeline of the shapes, which is built
+   * again after the shapes or motions of the model change.
+   *
+   * @return the ratio between 0 and 1, or 1 if no tick was applied
+   */
+  public double getTimelineHitRatio() {
+    return getRatio(this.ticksApplied - this.timelineBuilds, this.ticksApplied);
+  }
+
+  /**
+   * Returns the ratio of the lookups of the motion of a shape at a tick that found it next to the
+   * motion found by the previous lookup, without searching the motions of the shape.
+   *
+   * @return the ratio between 0 and 1, or 1 if no motion was looked up
+   */
+  public double getMotionLookupHitRatio() {
+    return getRatio(this.motionLookups - this.motionLookupMisses, this.motionLookups);
+  }
+
+  /**
+   * Returns the estimated memory used by the shapes, motions and keyframes of the model.
+   *
+   * @return the estimated number of bytes
+   */
+  public long getEstimatedModelBytes() {
+    return this.estimatedModelBytes;
+  }
+
+  /**
+   * Returns the estimated memory used by the frames published by the model and the timeline of its
+   * shapes.
+   *
+   * @return the estimated number of bytes
+   */
+  public long getEstimatedFrameBytes() {
+    return this.estimatedFrameBytes;
+  }
+
+  /**
+   * Returns the ratio of the given number of hits to the given number of attempts.
+   *
+   * @param hits     the number of hits
+   * @param attempts the number of attempts
+   * @return the ratio, or 1 if there were no attempts
+   */
+  private static double getRatio(long hits, long attempts) {
+    return attempts <= 0 ? 1 : (double) hits / attempts;
+  }
+}
@@ -4,9 +4,6 @@ import cs5004.animator.model.shapeutil.Color;
 import cs5004.animator.model.shapeutil.IShape;
 import cs5004.animator.model.shapeutil.Location;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Represents a motion of an animated shape that describes the change in state of the shape between
  * two tick where there is a keyframe at the start tick and a keyframe at the end tick. The motion
@@ -26,12 +23,8 @@ public class Motion {
   private final Color endColor;
   private final int startTick;
   private final int endTick;
-
-  private final Map<Integer, Color> colors = new HashMap<>();
-  private final Map<Integer, Location> locations = new HashMap<>();
-  private final Map<Integer, Integer> widths = new HashMap<>();
-  private final Map<Integer, Integer> heights = new HashMap<>();
-
+  // Whether the state of the shape does not change during the motion
+  private final boolean isStationary;
 
   /**
    * Constructs a motion with the state of the shape at the start tick, the state of the shape at
@@ -73,7 +66,9 @@ public class Motion {
     this.endColor = endColor;
     this.startTick = startTick;
     this.endTick = endTick;
-    this.setShapeStates();
+    this.isStationary = startTick == endTick || startColor.equals(endColor)
+        && startWidth == endWidth && startHeight == endHeight
+        && startLocation.equals(endLocation);
   }
 
   /**
@@ -110,50 +105,69 @@ public class Motion {
   public void applyTick(IShape s, int tick) {
     if (tick < this.startTick || tick > this.endTick) {
       s.makeInvisible();
+      return;
     }
     if (this.startTick == this.endTick) {
       s.setState(endWidth, endHeight, endColor, endLocation);
     } else {
-      s.setState(widths.get(tick), heights.get(tick), colors.get(tick), locations.get(tick));
+      int i = tick - this.startTick;
+      s.setState(this.interpolate(startWidth, endWidth, i),
+          this.interpolate(startHeight, endHeight, i),
+          new Color(this.interpolate(startColor.getR(), endColor.getR(), i),
+              this.interpolate(startColor.getG(), endColor.getG(), i),
+              this.interpolate(startColor.getB(), endColor.getB(), i)),
+          new Location(this.interpolate(startLocation.getX(), endLocation.getX(), i),
+              this.interpolate(startLocation.getY(), endLocation.getY(), i)));
     }
   }
 
   /**
-   * Calculates the state of the shape at each tick between the start and end tick by using linear
-   * interpolation. Put the state of the shape at each tick in the corresponding maps. The changes
-   * will be applied to the shape based on the tick. Instead of using the provided tweening formula,
-   * the change in state is calculated by the proportion of the change by each tick.
+   * Writes the state of the shape at a specific tick into the given position of a frame, without
+   * creating any objects.
+   *
+   * @param frame the frame to write to
+   * @param index the position of the shape in the frame
+   * @param type  the type of the shape in the frame
+   * @param tick  the tick
    */
-  private void setShapeStates() {
+  void writeFrame(Frame frame, int index, int type, int tick) {
+    if (tick < this.startTick || tick > this.endTick) {
+      frame.setInvisible(index, type);
+    } else if (this.isStationary) {
+      // Interpolating between equal states gives the end state at every tick
+      frame.set(index, type, endLocation.getX(), endLocation.getY(), endWidth, endHeight,
+          endColor.getR(), endColor.getG(), endColor.getB());
+    } else {
+      // The values are interpolated before the call, which keeps the operand stack small enough
+      // for the compiler to inline the interpolations
+      int i = tick - this.startTick;
+      int x = this.interpolate(startLocation.getX(), endLocation.getX(), i);
+      int y = this.interpolate(startLocation.getY(), endLocation.getY(), i);
+      int w = this.interpolate(startWidth, endWidth, i);
+      int h = this.interpolate(startHeight, endHeight, i);
+      int r = this.interpolate(startColor.getR(), endColor.getR(), i);
+      int g = this.interpolate(startColor.getG(), endColor.getG(), i);
+      int b = this.interpolate(startColor.getB(), endColor.getB(), i);
+      frame.set(index, type, x, y, w, h, r, g, b);
+    }
+  }
+
+  /**
+   * Calculates the value of a property of the shape at the given number of ticks after the start
+   * tick by using linear interpolation. Instead of using the provided tweening formula, the change
+   * in state is calculated by the proportion of the change by each tick, so the value is rounded
+   * exactly the same way no matter at which tick it is requested.
+   *
+   * @param start the value of the property at the start tick
+   * @param end   the value of the property at the end tick
+   * @param i     the number of ticks since the start tick
+   * @return the value of the property at the given tick
+   */
+  private int interpolate(int start, int end, int i) {
     double ticks = this.endTick - this.startTick;
-    // Increments per tick:
-    double x = (endLocation.getX() - startLocation.getX());
-    double y = (endLocation.getY() - startLocation.getY());
-    double w = (endWidth - startWidth);
-    double h = (endHeight - startHeight);
-    double r = (endColor.getR() - startColor.getR());
-    double g = (endColor.getG() - startColor.getG());
-    double b = (endColor.getB() - startColor.getB());
     // Proportion of change per tick:
-    if (ticks != 0) {
-      x = x / ticks;
-      y = y / ticks;
-      w = w / ticks;
-      h = h / ticks;
-      r = r / ticks;
-      g = g / ticks;
-      b = b / ticks;
-    }
-    // Calculate the state of the shape at each tick:
-    for (int i = 0; i <= ticks; i++) {
-      this.colors.put(startTick + i, new Color((int) Math.round(startColor.getR() + r * i),
-          (int) Math.round(startColor.getG() + g * i),
-          (int) Math.round(startColor.getB() + b * i)));
-      this.locations.put(startTick + i, new Location((int) Math.round(startLocation.getX() + x * i),
-          (int) Math.round(startLocation.getY() + y * i)));
-      this.widths.put(startTick + i, (int) Math.round(startWidth + w * i));
-      this.heights.put(startTick + i, (int) Math.round(startHeight + h * i));
-    }
+    double increment = (end - start) / ticks;
+    return (int) Math.round(start + increment * i);
   }
 
   /**
@@ -256,6 +270,15 @@ public class Motion {
     return tick >= this.startTick && tick <= this.endTick;
   }
 
+  /**
+   * Determines whether the motion leaves the shape in the same state at every tick it occurs.
+   *
+   * @return true if the state of the shape does not change during the motion, false otherwise
+   */
+  public boolean isStationary() {
+    return this.isStationary;
+  }
+
   /**
    * Determines whether the action has teleported or not.
    *
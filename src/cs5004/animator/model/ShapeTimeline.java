@@ -0,0 +1,251 @@
+package cs5004.animator.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Represents the timeline of the shapes in an animation. A shape is alive from the start tick of
+ * its first motion to the end tick of its last motion, so the timeline is described by the ticks
+ * at which each shape enters and exits the animation. The timeline keeps track of the shapes that
+ * are alive at the last applied tick, and only those shapes are updated when a tick is applied.
+ * Shapes entering or leaving the animation are found by walking the enter and exit events in
+ * order. When enough shapes are alive, they are updated in parallel on the common fork-join pool.
+ *
+ * <p>Applying a tick also fills the back frame of a {@link FrameBuffer}. The alive shapes write
+ * their new state into it as they are updated, and the other shapes are only written again when
+ * they changed since that frame was last filled, which is when they leave the animation. The work
+ * done for a tick is thus proportional to the number of alive shapes and of shapes leaving the
+ * animation, not to the number of shapes in the animation.</p>
+ */
+final class ShapeTimeline {
+
+  // Number of alive shapes updated by a single fork-join task
+  private static final int PARALLEL_CHUNK_SIZE = 512;
+
+  private final List<IAnimatedShape> shapes;
+  private final int parallelThreshold;
+  private final int[] enterTicks;
+  private final int[] exitTicks;
+  // Indices of the shapes sorted by the ticks at which they enter and exit the animation
+  private final int[] byEnterTick;
+  private final int[] byExitTick;
+  // Indices of the shapes alive at the last applied tick, and the position of each shape in it
+  private final int[] active;
+  private final int[] activePosition;
+  private int activeCount = 0;
+  private int nextEnter = 0;
+  private int nextExit = 0;
+  private int tick = 0;
+  private boolean isSynchronized = false;
+
+  /**
+   * Constructs the timeline of the given shapes. The shapes must not be changed while the timeline
+   * is in use.
+   *
+   * @param shapes            the animated shapes in the order they are drawn
+   * @param parallelThreshold the number of alive shapes at and above which the shapes are updated
+   *                          in parallel
+   */
+  ShapeTimeline(List<IAnimatedShape> shapes, int parallelThreshold) {
+    int n = shapes.size();
+    this.shapes = shapes;
+    this.parallelThreshold = parallelThreshold;
+    this.enterTicks = new int[n];
+    this.exitTicks = new int[n];
+    this.active = new int[n];
+    this.activePosition = new int[n];
+    long[] enterEvents = new long[n];
+    long[] exitEvents = new long[n];
+    for (int i = 0; i < n; i++) {
+      List<Motion> motions = shapes.get(i).getMotions();
+      if (motions.isEmpty()) {
+        // A shape without motions is never alive
+        this.enterTicks[i] = Integer.MAX_VALUE;
+        this.exitTicks[i] = Integer.MIN_VALUE;
+      } else {
+        this.enterTicks[i] = motions.get(0).getStartTick();
+        this.exitTicks[i] = motions.get(motions.size() - 1).getEndTick();
+      }
+      this.activePosition[i] = -1;
+      enterEvents[i] = ((long) this.enterTicks[i] << 32) | i;
+      exitEvents[i] = ((long) this.exitTicks[i] << 32) | i;
+    }
+    Arrays.sort(enterEvents);
+    Arrays.sort(exitEvents);
+    this.byEnterTick = new int[n];
+    this.byExitTick = new int[n];
+    for (int i = 0; i < n; i++) {
+      this.byEnterTick[i] = (int) enterEvents[i];
+      this.byExitTick[i] = (int) exitEvents[i];
+    }
+  }
+
+  /**
+   * Applies the given tick to the shapes that are alive at that tick, and fills the back frame of
+   * the given frame buffer with the state of every shape at that tick. Shapes that left the
+   * animation since the last applied tick are made invisible. The first tick applied to the
+   * timeline also makes every shape that is not alive invisible, since the state of the shapes is
+   * not known before that.
+   *
+   * @param tick   the tick to be applied
+   * @param frames the frame buffer whose back frame is filled
+   */
+  void applyTick(int tick, FrameBuffer frames) {
+    int[] previouslyActive = null;
+    int previousCount = 0;
+    if (tick < this.tick) {
+      // Seeking backward replays the events from the beginning of the animation
+      previouslyActive = Arrays.copyOf(this.active, this.activeCount);
+      previousCount = this.activeCount;
+      for (int i = 0; i < previousCount; i++) {
+        this.activePosition[previouslyActive[i]] = -1;
+      }
+      this.activeCount = 0;
+      this.nextEnter = 0;
+      this.nextExit = 0;
+    }
+    while (this.nextEnter < this.byEnterTick.length
+        && this.enterTicks[this.byEnterTick[this.nextEnter]] <= tick) {
+      int s = this.byEnterTick[this.nextEnter++];
+      if (this.exitTicks[s] >= tick) {
+        this.activate(s);
+      }
+    }
+    while (this.nextExit < this.byExitTick.length
+        && this.exitTicks[this.byExitTick[this.nextExit]] < tick) {
+      int s = this.byExitTick[this.nextExit++];
+      if (this.activePosition[s] >= 0) {
+        this.deactivate(s);
+        this.shapes.get(s).applyTick(tick);
+        frames.markStale(s);
+      }
+    }
+    for (int i = 0; i < previousCount; i++) {
+      int s = previouslyActive[i];
+      if (this.activePosition[s] < 0) {
+        this.shapes.get(s).applyTick(tick);
+        frames.markStale(s);
+      }
+    }
+    if (!this.isSynchronized) {
+      for (int s = 0; s < this.shapes.size(); s++) {
+        if (this.activePosition[s] < 0) {
+          this.shapes.get(s).applyTick(tick);
+        }
+      }
+      frames.markAllStale();
+      this.isSynchronized = true;
+    }
+    this.tick = tick;
+
+    // The shapes that are not alive only change when they leave the animation, so the frame keeps
+    // them from the last time it was filled unless they were marked since then
+    Frame frame = frames.getBackFrame();
+    frame.reset(tick, this.shapes.size());
+    if (frame.isAllStale()) {
+      for (int s = 0; s < this.shapes.size(); s++) {
+        if (this.activePosition[s] < 0) {
+          this.shapes.get(s).writeFrame(frame, s, tick);
+        }
+      }
+    } else {
+      for (int k = 0; k < frame.getStaleCount(); k++) {
+        int s = frame.getStale(k);
+        if (this.activePosition[s] < 0) {
+          this.shapes.get(s).writeFrame(frame, s, tick);
+        }
+      }
+    }
+    frame.clearStale();
+    if (this.activeCount >= this.parallelThreshold
+        && ForkJoinPool.getCommonPoolParallelism() > 1) {
+      ForkJoinPool.commonPool().invoke(new ApplyTickTask(tick, frame, 0, this.activeCount));
+    } else {
+      this.applyTickToActive(tick, frame, 0, this.activeCount);
+    }
+  }
+
+  /**
+   * Applies the given tick to the alive shapes in the given range of positions, and writes their
+   * new state into the given frame.
+   *
+   * @param tick  the tick to be applied
+   * @param frame the frame to write to
+   * @param from  the first position, inclusive
+   * @param to    the last position, exclusive
+   */
+  private void applyTickToActive(int tick, Frame frame, int from, int to) {
+    for (int i = from; i < to; i++) {
+      int s = this.active[i];
+      this.shapes.get(s).applyTick(tick, frame, s);
+    }
+  }
+
+  /**
+   * A fork-join task that applies a tick to a range of the alive shapes and writes their new state
+   * into a frame. The range is split in half until it is small enough to be updated sequentially.
+   * Every shape and every position of the frame is only touched by one task, so the tasks do not
+   * interfere with each other.
+   */
+  private final class ApplyTickTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int tick;
+    private final transient Frame frame;
+    private final int from;
+    private final int to;
+
+    /**
+     * Constructs a task that applies the tick to the alive shapes between the given positions.
+     *
+     * @param tick  the tick to be applied
+     * @param frame the frame to write to
+     * @param from  the first position, inclusive
+     * @param to    the last position, exclusive
+     */
+    ApplyTickTask(int tick, Frame frame, int from, int to) {
+      this.tick = tick;
+      this.frame = frame;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from <= PARALLEL_CHUNK_SIZE) {
+        applyTickToActive(this.tick, this.frame, this.from, this.to);
+      } else {
+        int mid = (this.from + this.to) >>> 1;
+        invokeAll(new ApplyTickTask(this.tick, this.frame, this.from, mid),
+            new ApplyTickTask(this.tick, this.frame, mid, this.to));
+      }
+    }
+  }
+
+  /**
+   * Adds the shape at the given index to the shapes that are alive.
+   *
+   * @param s the index of the shape
+   */
+  private void activate(int s) {
+    this.activePosition[s] = this.activeCount;
+    this.active[this.activeCount++] = s;
+  }
+
+  /**
+   * Removes the shape at the given index from the shapes that are alive by moving the last alive
+   * shape into its place.
+   *
+   * @param s the index of the shape
+   */
+  private void deactivate(int s) {
+    int position = this.activePosition[s];
+    int last = this.active[--this.activeCount];
+    this.active[position] = last;
+    this.activePosition[last] = position;
+    this.activePosition[s] = -1;
+  }
+}
@@ -0,0 +1,50 @@
+package cs5004.animator.monitor;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Represents a writer that counts the characters written to another writer, so the size of an
+ * export can be recorded.
+ */
+public final class CountingWriter extends FilterWriter {
+
+  private long count = 0;
+
+  /**
+   * Constructs a writer that writes to the given writer.
+   *
+   * @param out the writer to write to
+   */
+  public CountingWriter(Writer out) {
+    super(out);
+  }
+
+  /**
+   * Returns the number of characters written so far.
+   *
+   * @return the number of characters written
+   */
+  public long getCount() {
+    return this.count;
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    super.write(c);
+    this.count++;
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    super.write(cbuf, off, len);
+    this.count += len;
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    super.write(str, off, len);
+    this.count += len;
+  }
+}
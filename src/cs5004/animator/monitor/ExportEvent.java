@@ -0,0 +1,38 @@
+package cs5004.animator.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Represents the Flight Recorder event of an animation written out by a view or compiled to a
+ * file.
+ */
+@Name("cs5004.animator.Export")
+@Label("Export Animation")
+@Category({"Animator"})
+@Description("An animation written out as text, SVG or binary")
+@StackTrace(false)
+public final class ExportEvent extends Event {
+
+  /**
+   * The format written: "text", "svg" or "binary".
+   */
+  @Label("Format")
+  public String format;
+
+  /**
+   * The number of shapes written.
+   */
+  @Label("Shapes")
+  public int shapes;
+
+  /**
+   * The number of characters written, or of bytes for the binary format.
+   */
+  @Label("Size Written")
+  public long size;
+}
@@ -0,0 +1,53 @@
+package cs5004.animator.monitor;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes animations out as text while recording them as {@link ExportEvent} events, for the views
+ * that write the same animation in different formats.
+ */
+public final class ExportRecorder {
+
+  /**
+   * Represents an animation that is written out as text.
+   */
+  public interface TextExport {
+
+    /**
+     * Writes the animation to the given writer, and returns the number of shapes written.
+     *
+     * @param out the writer
+     * @return the number of shapes written
+     * @throws IOException if the writer fails
+     */
+    int writeTo(Writer out) throws IOException;
+  }
+
+  private ExportRecorder() {
+    // Only holds a static method
+  }
+
+  /**
+   * Writes an animation to the given writer and records it as an event of the given format. The
+   * characters written are only counted while the event is recorded.
+   *
+   * @param format the format written
+   * @param out    the writer
+   * @param export the animation to be written
+   * @throws IOException if the writer fails
+   */
+  public static void write(String format, Writer out, TextExport export) throws IOException {
+    ExportEvent event = new ExportEvent();
+    event.begin();
+    CountingWriter counter = event.isEnabled() ? new CountingWriter(out) : null;
+    int shapes = export.writeTo(counter == null ? out : counter);
+    event.end();
+    if (event.shouldCommit() && counter != null) {
+      event.format = format;
+      event.shapes = shapes;
+      event.size = counter.getCount();
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package cs5004.animator.monitor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Represents a histogram of durations in nanoseconds that can be recorded from any thread without
+ * locking. Durations are counted in buckets whose width grows with the duration: each power of two
+ * is split into eight buckets, so a percentile read from the histogram is at most 12.5% above the
+ * exact one. The counts only grow, and the durations recorded between two moments are found by
+ * subtracting the counts read at the first moment from the counts read at the second.
+ */
+public final class LatencyHistogram {
+
+  // Number of buckets each power of two is split into, as a power of two
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+  /**
+   * Records a duration.
+   *
+   * @param nanos the duration in nanoseconds, durations below zero are recorded as zero
+   */
+  public void record(long nanos) {
+    this.counts.incrementAndGet(getBucket(Math.max(0, nanos)));
+  }
+
+  /**
+   * Returns the counts of every bucket of the histogram. The counts are read one by one while
+   * durations may be recorded, so they are only as consistent as a sample needs to be.
+   *
+   * @return the counts of the buckets
+   */
+  public long[] getCounts() {
+    long[] copy = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      copy[i] = this.counts.get(i);
+    }
+    return copy;
+  }
+
+  /**
+   * Returns the given percentile of the durations recorded between two readings of the counts of a
+   * histogram.
+   *
+   * @param from       the counts read first, or null to use every duration up to the second
+   *                   reading
+   * @param to         the counts read second
+   * @param percentile the percentile, between 0 and 100
+   * @return the percentile in nanoseconds, rounded up to the end of its bucket, or 0 if no duration
+   *         was recorded in between
+   * @throws IllegalArgumentException if the percentile is not between 0 and 100
+   */
+  public static long getPercentile(long[] from, long[] to, double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100");
+    }
+    long total = 0;
+    for (int i = 0; i < to.length; i++) {
+      total += to[i] - (from == null ? 0 : from[i]);
+    }
+    if (total <= 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < to.length; i++) {
+      seen += to[i] - (from == null ? 0 : from[i]);
+      if (seen >= rank) {
+        return getBucketEnd(i);
+      }
+    }
+    return getBucketEnd(to.length - 1);
+  }
+
+  /**
+   * Returns the bucket counting the given duration.
+   *
+   * @param nanos the duration in nanoseconds, not below zero
+   * @return the index of the bucket
+   */
+  static int getBucket(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return (int) nanos;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int subBucket = (int) (nanos >>> shift) & (SUB_BUCKETS - 1);
+    return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Returns the longest duration counted by the given bucket.
+   *
+   * @param bucket the index of the bucket
+   * @return the duration in nanoseconds
+   */
+  static long getBucketEnd(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+    long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+    long end = ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    return end < 0 ? Long.MAX_VALUE : end;
+  }
+}
@@ -0,0 +1,37 @@
+package cs5004.animator.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Represents the Flight Recorder event of a frame of an animation painted on the screen.
+ */
+@Name("cs5004.animator.Paint")
+@Label("Paint Frame")
+@Category({"Animator"})
+@Description("A frame of an animation painted on the screen")
+@StackTrace(false)
+public final class PaintEvent extends Event {
+
+  /**
+   * The tick of the frame painted.
+   */
+  @Label("Tick")
+  public int tick;
+
+  /**
+   * The number of shapes in the frame.
+   */
+  @Label("Shapes")
+  public int shapes;
+
+  /**
+   * The number of shapes painted.
+   */
+  @Label("Painted Shapes")
+  public int paintedShapes;
+}
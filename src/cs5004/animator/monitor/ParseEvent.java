@@ -0,0 +1,37 @@
+package cs5004.animator.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Represents the Flight Recorder event of an animation file read into a model.
+ */
+@Name("cs5004.animator.Parse")
+@Label("Parse Animation")
+@Category({"Animator"})
+@Description("An animation file read into a model")
+@StackTrace(false)
+public final class ParseEvent extends Event {
+
+  /**
+   * The format of the file: "text", "text-parallel" or "binary".
+   */
+  @Label("Format")
+  public String format;
+
+  /**
+   * The number of shapes declared.
+   */
+  @Label("Shapes")
+  public long shapes;
+
+  /**
+   * The number of motions read.
+   */
+  @Label("Motions")
+  public long motions;
+}
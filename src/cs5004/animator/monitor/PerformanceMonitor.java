@@ -0,0 +1,439 @@
+package cs5004.animator.monitor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents the live performance counters of the animator: how long ticks take to be applied and
+ * frames take to be painted, how many ticks were skipped and how many timer runs were late. The
+ * counters are recorded by the controller and the views from any thread without locking, and only
+ * ever grow. The rates over a period of time are read by taking a {@link Sample} at its start and
+ * at its end, so reading the counters never resets them nor slows down recording them.
+ */
+public final class PerformanceMonitor {
+
+  private static final PerformanceMonitor INSTANCE = new PerformanceMonitor();
+
+  private final LatencyHistogram tickTimes = new LatencyHistogram();
+  private final LatencyHistogram paintTimes = new LatencyHistogram();
+  private final AtomicLong ticks = new AtomicLong();
+  private final AtomicLong droppedTicks = new AtomicLong();
+  private final AtomicLong frames = new AtomicLong();
+  private final AtomicLong lateFrames = new AtomicLong();
+  private final AtomicLong totalTickTime = new AtomicLong();
+  private final AtomicLong maxTickTime = new AtomicLong();
+  private final AtomicLong totalPaintTime = new AtomicLong();
+  private final AtomicLong maxPaintTime = new AtomicLong();
+  private final AtomicLong colorLookups = new AtomicLong();
+  private final AtomicLong colorLookupMisses = new AtomicLong();
+  // Time of the last run of the timer in nanoseconds, or 0 if the timer was just started
+  private final AtomicLong lastTimerRun = new AtomicLong();
+  private volatile int requestedSpeed = 0;
+  private volatile int visibleShapes = 0;
+
+  /**
+   * Constructs a monitor whose counters are all zero. The animator uses the monitor returned by
+   * {@link #getInstance()}.
+   */
+  PerformanceMonitor() {
+  }
+
+  /**
+   * Returns the monitor shared by the whole animator.
+   *
+   * @return the monitor
+   */
+  public static PerformanceMonitor getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Records a tick applied to the model.
+   *
+   * @param nanos the time taken to apply the tick in nanoseconds
+   */
+  public void recordTick(long nanos) {
+    this.tickTimes.record(nanos);
+    this.totalTickTime.addAndGet(nanos);
+    updateMax(this.maxTickTime, nanos);
+    this.ticks.incrementAndGet();
+  }
+
+  /**
+   * Records ticks that were skipped between two frames, because a frame was late or the speed of
+   * the animation is above the frame rate.
+   *
+   * @param count the number of ticks skipped
+   */
+  public void recordDroppedTicks(int count) {
+    if (count > 0) {
+      this.droppedTicks.addAndGet(count);
+    }
+  }
+
+  /**
+   * Records a run of the timer playing the animation. The run is late when it comes more than one
+   * and a half periods after the previous run.
+   *
+   * @param periodNanos the period of the timer in nanoseconds
+   */
+  public void recordTimerRun(long periodNanos) {
+    long now = System.nanoTime();
+    long last = this.lastTimerRun.getAndSet(now);
+    if (last != 0 && now - last > periodNanos + periodNanos / 2) {
+      this.lateFrames.incrementAndGet();
+    }
+  }
+
+  /**
+   * Records that the timer playing the animation was started, so the time it was stopped is not
+   * counted as a late run.
+   */
+  public void recordTimerStart() {
+    this.lastTimerRun.set(0);
+  }
+
+  /**
+   * Records the speed the animation is played at.
+   *
+   * @param speed the speed in ticks per second, 0 if the animation is paused
+   */
+  public void setRequestedSpeed(int speed) {
+    this.requestedSpeed = speed;
+  }
+
+  /**
+   * Records a frame painted by a view.
+   *
+   * @param nanos         the time taken to paint the frame in nanoseconds
+   * @param visibleShapes the number of shapes painted
+   */
+  public void recordPaint(long nanos, int visibleShapes) {
+    this.paintTimes.record(nanos);
+    this.totalPaintTime.addAndGet(nanos);
+    updateMax(this.maxPaintTime, nanos);
+    this.visibleShapes = visibleShapes;
+    this.frames.incrementAndGet();
+  }
+
+  /**
+   * Records the lookups of the colors of the shapes painted in a frame, counted by the view once
+   * per frame rather than once per shape.
+   *
+   * @param lookups the number of colors looked up
+   * @param misses  the number of colors that were not cached
+   */
+  public void recordColorLookups(int lookups, int misses) {
+    this.colorLookups.addAndGet(lookups);
+    this.colorLookupMisses.addAndGet(misses);
+  }
+
+  /**
+   * Returns the number of ticks applied so far.
+   *
+   * @return the number of ticks applied
+   */
+  public long getTicks() {
+    return this.ticks.get();
+  }
+
+  /**
+   * Returns the number of frames painted so far.
+   *
+   * @return the number of frames painted
+   */
+  public long getFrames() {
+    return this.frames.get();
+  }
+
+  /**
+   * Returns the total time taken to apply the ticks so far.
+   *
+   * @return the time in nanoseconds
+   */
+  public long getTotalTickTime() {
+    return this.totalTickTime.get();
+  }
+
+  /**
+   * Returns the longest time taken to apply a tick since the start or since the maximums were
+   * reset.
+   *
+   * @return the time in nanoseconds
+   */
+  public long getMaxTickTime() {
+    return this.maxTickTime.get();
+  }
+
+  /**
+   * Returns the total time taken to paint the frames so far.
+   *
+   * @return the time in nanoseconds
+   */
+  public long getTotalPaintTime() {
+    return this.totalPaintTime.get();
+  }
+
+  /**
+   * Returns the longest time taken to paint a frame since the start or since the maximums were
+   * reset.
+   *
+   * @return the time in nanoseconds
+   */
+  public long getMaxPaintTime() {
+    return this.maxPaintTime.get();
+  }
+
+  /**
+   * Returns the number of ticks skipped so far.
+   *
+   * @return the number of ticks skipped
+   */
+  public long getDroppedTicks() {
+    return this.droppedTicks.get();
+  }
+
+  /**
+   * Returns the number of late runs of the timer so far.
+   *
+   * @return the number of late runs
+   */
+  public long getLateFrames() {
+    return this.lateFrames.get();
+  }
+
+  /**
+   * Returns the number of colors looked up by the views so far.
+   *
+   * @return the number of colors looked up
+   */
+  public long getColorLookups() {
+    return this.colorLookups.get();
+  }
+
+  /**
+   * Returns the number of colors looked up by the views that were not cached.
+   *
+   * @return the number of colors not cached
+   */
+  public long getColorLookupMisses() {
+    return this.colorLookupMisses.get();
+  }
+
+  /**
+   * Returns the speed the animation is played at.
+   *
+   * @return the speed in ticks per second, 0 if the animation is paused
+   */
+  public int getRequestedSpeed() {
+    return this.requestedSpeed;
+  }
+
+  /**
+   * Resets the longest times taken to apply a tick and to paint a frame.
+   */
+  public void resetMaximums() {
+    this.maxTickTime.set(0);
+    this.maxPaintTime.set(0);
+  }
+
+  /**
+   * Raises the given maximum to the given value if the value is larger.
+   *
+   * @param max   the maximum
+   * @param value the value
+   */
+  private static void updateMax(AtomicLong max, long value) {
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Takes a sample of the counters.
+   *
+   * @return the sample
+   */
+  public Sample sample() {
+    return new Sample(this);
+  }
+
+  /**
+   * Returns the number of bytes allocated so far by the threads that are alive, or -1 if the
+   * virtual machine does not measure it. The bytes allocated by threads that have ended are not
+   * counted, so this number can go down.
+   *
+   * @return the number of bytes allocated
+   */
+  static long getAllocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+    if (!sunThreads.isThreadAllocatedMemorySupported()
+        || !sunThreads.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    long total = 0;
+    for (long bytes : sunThreads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+      if (bytes > 0) {
+        total += bytes;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Represents the counters of a monitor at a moment. The rates and percentiles over a period are
+   * read from the sample taken at its end, given the sample taken at its start.
+   */
+  public static final class Sample {
+
+    private final long time;
+    private final long ticks;
+    private final long droppedTicks;
+    private final long frames;
+    private final long lateFrames;
+    private final long[] tickTimes;
+    private final long[] paintTimes;
+    private final long allocatedBytes;
+    private final int requestedSpeed;
+    private final int visibleShapes;
+
+    /**
+     * Reads the counters of the given monitor.
+     *
+     * @param monitor the monitor
+     */
+    private Sample(PerformanceMonitor monitor) {
+      this.time = System.nanoTime();
+      this.ticks = monitor.ticks.get();
+      this.droppedTicks = monitor.droppedTicks.get();
+      this.frames = monitor.frames.get();
+      this.lateFrames = monitor.lateFrames.get();
+      this.tickTimes = monitor.tickTimes.getCounts();
+      this.paintTimes = monitor.paintTimes.getCounts();
+      this.allocatedBytes = getAllocatedBytes();
+      this.requestedSpeed = monitor.requestedSpeed;
+      this.visibleShapes = monitor.visibleShapes;
+    }
+
+    /**
+     * Returns the time the sample was taken, as given by {@link System#nanoTime()}.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getTime() {
+      return this.time;
+    }
+
+    /**
+     * Returns the speed the animation was played at when the sample was taken.
+     *
+     * @return the speed in ticks per second, 0 if the animation was paused
+     */
+    public int getRequestedSpeed() {
+      return this.requestedSpeed;
+    }
+
+    /**
+     * Returns the number of shapes painted in the last frame before the sample was taken.
+     *
+     * @return the number of shapes
+     */
+    public int getVisibleShapes() {
+      return this.visibleShapes;
+    }
+
+    /**
+     * Returns the number of frames painted per second since the given sample.
+     *
+     * @param since the sample taken earlier
+     * @return the number of frames per second
+     */
+    public double getFramesPerSecond(Sample since) {
+      return this.perSecond(this.frames - since.frames, since);
+    }
+
+    /**
+     * Returns the number of ticks applied per second since the given sample.
+     *
+     * @param since the sample taken earlier
+     * @return the number of ticks per second
+     */
+    public double getTicksPerSecond(Sample since) {
+      return this.perSecond(this.ticks - since.ticks, since);
+    }
+
+    /**
+     * Returns the number of ticks skipped since the given sample.
+     *
+     * @param since the sample taken earlier
+     * @return the number of ticks skipped
+     */
+    public long getDroppedTicks(Sample since) {
+      return this.droppedTicks - since.droppedTicks;
+    }
+
+    /**
+     * Returns the number of late runs of the timer since the given sample.
+     *
+     * @param since the sample taken earlier
+     * @return the number of late runs
+     */
+    public long getLateFrames(Sample since) {
+      return this.lateFrames - since.lateFrames;
+    }
+
+    /**
+     * Returns the given percentile of the times taken to apply the ticks since the given sample.
+     *
+     * @param since      the sample taken earlier
+     * @param percentile the percentile, between 0 and 100
+     * @return the percentile in nanoseconds, or 0 if no tick was applied
+     */
+    public long getTickTime(Sample since, double percentile) {
+      return LatencyHistogram.getPercentile(since.tickTimes, this.tickTimes, percentile);
+    }
+
+    /**
+     * Returns the given percentile of the times taken to paint the frames since the given sample.
+     *
+     * @param since      the sample taken earlier
+     * @param percentile the percentile, between 0 and 100
+     * @return the percentile in nanoseconds, or 0 if no frame was painted
+     */
+    public long getPaintTime(Sample since, double percentile) {
+      return LatencyHistogram.getPercentile(since.paintTimes, this.paintTimes, percentile);
+    }
+
+    /**
+     * Returns the number of bytes allocated per second since the given sample. Only the threads
+     * alive when the samples were taken are counted, so the rate is an estimate.
+     *
+     * @param since the sample taken earlier
+     * @return the number of bytes per second, or -1 if the virtual machine does not measure it
+     */
+    public double getAllocationRate(Sample since) {
+      if (this.allocatedBytes < 0 || since.allocatedBytes < 0) {
+        return -1;
+      }
+      return this.perSecond(Math.max(0, this.allocatedBytes - since.allocatedBytes), since);
+    }
+
+    /**
+     * Returns the given count divided by the number of seconds since the given sample.
+     *
+     * @param count the count
+     * @param since the sample taken earlier
+     * @return the count per second, or 0 if no time passed
+     */
+    private double perSecond(long count, Sample since) {
+      long nanos = this.time - since.time;
+      return nanos <= 0 ? 0 : count * 1e9 / nanos;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package cs5004.animator.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Represents the Flight Recorder event of a tick applied to the shapes of an animation, recorded
+ * by the model every time the animation moves to another tick.
+ */
+@Name("cs5004.animator.Tick")
+@Label("Apply Tick")
+@Category({"Animator"})
+@Description("A tick applied to the shapes of an animation")
+@StackTrace(false)
+public final class TickEvent extends Event {
+
+  /**
+   * The tick applied.
+   */
+  @Label("Tick")
+  public int tick;
+
+  /**
+   * The number of shapes in the animation.
+   */
+  @Label("Shapes")
+  public int shapes;
+
+  /**
+   * The number of shapes visible at the tick.
+   */
+  @Label("Visible Shapes")
+  public int visibleShapes;
+}
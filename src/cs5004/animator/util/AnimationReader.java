@@ -1,13 +1,27 @@
 package cs5004.animator.util;
 
+import cs5004.animator.monitor.ParseEvent;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.Scanner;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
- * A helper to read animation data and construct an animation from it.
+ * A helper to read animation data and construct an animation from it. The data is split into
+ * tokens by an {@link AnimationTokenizer}, which reads the source through a buffer and parses the
+ * numbers without going through strings.
  */
 public class AnimationReader {
+
+  // Smallest number of characters read by a single task when parsing in parallel
+  private static final int MIN_CHUNK_SIZE = 1 << 18;
+  // Number of chunks per thread of the pool, so threads that finish early can take more work
+  private static final int CHUNKS_PER_THREAD = 4;
+
   /**
    * A factory for producing new animations, given a source of shapes and a
    * builder for constructing animations.
@@ -34,9 +48,190 @@ public class AnimationReader {
   public static <Doc> Doc parseFile(Readable readable, AnimationBuilder<Doc> builder) {
     Objects.requireNonNull(readable, "Must have non-null readable source");
     Objects.requireNonNull(builder, "Must provide a non-null AnimationBuilder");
-    Scanner s = new Scanner(readable);
+    ParseEvent event = new ParseEvent();
+    event.begin();
     // Split at whitespace, and ignore # comment lines
-    s.useDelimiter(Pattern.compile("(\\p{Space}+|#.*)+")); 
+    readStatements(new AnimationTokenizer(readable), builder, event);
+    Doc doc = builder.build();
+    commit(event, "text");
+    return doc;
+  }
+
+  /**
+   * Produces a new animation like {@link #parseFile}, but splits the source into chunks of lines
+   * that are tokenized in parallel on the common fork-join pool. The calls each chunk makes to a
+   * builder are recorded, then replayed into the given builder in the order of the chunks, so the
+   * builder receives exactly the same calls in the same order as with {@link #parseFile}.
+   *
+   * <p>Chunks start at lines beginning with a keyword. A chunk that cannot be read on its own,
+   * because a statement spans the start of the next chunk or the input is invalid, is read again
+   * sequentially with the rest of the source, which gives the same result or error as
+   * {@link #parseFile}. The whole source is read in memory first, and small sources are not split
+   * at all.</p>
+   *
+   * @param readable The source of data for the animation
+   * @param builder  A builder for helping to construct a new animation
+   * @param <Doc>    The TheEasyAnimator model interface type describing animations
+   * @return A new animation constructed from the data in the source
+   */
+  public static <Doc> Doc parseFileParallel(Readable readable, AnimationBuilder<Doc> builder) {
+    Objects.requireNonNull(readable, "Must have non-null readable source");
+    Objects.requireNonNull(builder, "Must provide a non-null AnimationBuilder");
+    int parallelism = ForkJoinPool.getCommonPoolParallelism();
+    if (parallelism <= 1) {
+      return parseFile(readable, builder);
+    }
+    CharBuffer text = readAll(readable);
+    int chunkCount = Math.min(parallelism * CHUNKS_PER_THREAD, text.length() / MIN_CHUNK_SIZE);
+    if (chunkCount <= 1) {
+      return parseFile(text, builder);
+    }
+    ParseEvent event = new ParseEvent();
+    event.begin();
+    List<Integer> starts = new ArrayList<>();
+    starts.add(0);
+    for (int i = 1; i < chunkCount; i++) {
+      int start = findChunkStart(text, Math.max(starts.get(starts.size() - 1) + 1,
+          (int) ((long) text.length() * i / chunkCount)));
+      if (start < text.length()) {
+        starts.add(start);
+      }
+    }
+    starts.add(text.length());
+    List<ForkJoinTask<AnimationRecorder>> tasks = new ArrayList<>();
+    for (int i = 0; i + 1 < starts.size(); i++) {
+      CharBuffer chunk = subSequence(text, starts.get(i), starts.get(i + 1));
+      tasks.add(ForkJoinPool.commonPool().submit(() -> {
+        AnimationRecorder recorder = new AnimationRecorder();
+        readStatements(new AnimationTokenizer(chunk), recorder, null);
+        return recorder;
+      }));
+    }
+    for (int i = 0; i < tasks.size(); i++) {
+      AnimationRecorder recorder;
+      try {
+        recorder = tasks.get(i).join();
+      } catch (RuntimeException e) {
+        // The chunk cannot be read on its own, so the rest of the source is read sequentially
+        for (int j = i + 1; j < tasks.size(); j++) {
+          tasks.get(j).cancel(false);
+        }
+        readStatements(new AnimationTokenizer(subSequence(text, starts.get(i), text.length())),
+            builder, event);
+        break;
+      }
+      recorder.replay(builder);
+      event.shapes += recorder.getShapeCount();
+      event.motions += recorder.getMotionCount();
+    }
+    Doc doc = builder.build();
+    commit(event, "text-parallel");
+    return doc;
+  }
+
+  /**
+   * Ends the given event of a parsed animation, and commits it if it is recorded.
+   *
+   * @param event  the event
+   * @param format the format of the animation file
+   */
+  private static void commit(ParseEvent event, String format) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.format = format;
+      event.commit();
+    }
+  }
+
+  /**
+   * Reads the whole source into a buffer. As with {@link #parseFile}, an exception thrown by the
+   * source is treated as the end of the input.
+   *
+   * @param readable the source
+   * @return the text of the source, from the start to the end of the buffer
+   */
+  private static CharBuffer readAll(Readable readable) {
+    CharBuffer text = CharBuffer.allocate(MIN_CHUNK_SIZE);
+    try {
+      while (true) {
+        if (!text.hasRemaining()) {
+          CharBuffer larger = CharBuffer.allocate(text.capacity() * 2);
+          text.flip();
+          larger.put(text);
+          text = larger;
+        }
+        if (readable.read(text) < 0) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      // The input ends here
+    }
+    text.flip();
+    return text;
+  }
+
+  /**
+   * Returns the position of the first line at or after the given position that starts with a
+   * keyword followed by whitespace, or the length of the text if there is none.
+   *
+   * @param text the text
+   * @param from the position to start looking at
+   * @return the position of the start of the line
+   */
+  private static int findChunkStart(CharBuffer text, int from) {
+    for (int i = from; i < text.length(); i++) {
+      if (text.charAt(i - 1) == '\n' && (startsWith(text, i, "motion")
+          || startsWith(text, i, "shape") || startsWith(text, i, "canvas"))) {
+        return i;
+      }
+    }
+    return text.length();
+  }
+
+  /**
+   * Returns whether the text has the given keyword at the given position, followed by whitespace.
+   *
+   * @param text     the text
+   * @param position the position
+   * @param keyword  the keyword
+   * @return true if the keyword is at the position, false otherwise
+   */
+  private static boolean startsWith(CharBuffer text, int position, String keyword) {
+    int end = position + keyword.length();
+    if (end >= text.length()) {
+      return false;
+    }
+    for (int i = 0; i < keyword.length(); i++) {
+      if (text.charAt(position + i) != keyword.charAt(i)) {
+        return false;
+      }
+    }
+    return Character.isWhitespace(text.charAt(end));
+  }
+
+  /**
+   * Returns a view of the given part of the text that can be read on its own.
+   *
+   * @param text  the text
+   * @param start the start of the part, inclusive
+   * @param end   the end of the part, exclusive
+   * @return the part of the text
+   */
+  private static CharBuffer subSequence(CharBuffer text, int start, int end) {
+    return text.duplicate().subSequence(start, end);
+  }
+
+  /**
+   * Reads every statement from the tokenizer and makes the matching calls to the builder.
+   *
+   * @param s       the tokenizer
+   * @param builder the builder
+   * @param event   the event counting the shapes and motions read, or null to not count them
+   * @param <Doc>   the type of the document built by the builder
+   */
+  private static <Doc> void readStatements(AnimationTokenizer s, AnimationBuilder<Doc> builder,
+      ParseEvent event) {
     while (s.hasNext()) {
       String word = s.next();
       switch (word) {
@@ -45,18 +240,23 @@ public class AnimationReader {
           break;
         case "shape":
           readShape(s, builder);
+          if (event != null) {
+            event.shapes++;
+          }
           break;
         case "motion":
           readMotion(s, builder);
+          if (event != null) {
+            event.motions++;
+          }
           break;
         default:
           throw new IllegalStateException("Unexpected keyword: " + word + s.nextLine());
       }
     }
-    return builder.build();
   }
 
-  private static <Doc> void readCanvas(Scanner s, AnimationBuilder<Doc> builder) {
+  private static <Doc> void readCanvas(AnimationTokenizer s, AnimationBuilder<Doc> builder) {
     int[] vals = new int[4];
     String[] fieldNames = {"left", "top", "width", "height"};
     for (int i = 0; i < 4; i++) {
@@ -65,7 +265,7 @@ public class AnimationReader {
     builder.setBounds(vals[0], vals[1], vals[2], vals[3]);
   }
 
-  private static <Doc> void readShape(Scanner s, AnimationBuilder<Doc> builder) {
+  private static <Doc> void readShape(AnimationTokenizer s, AnimationBuilder<Doc> builder) {
     String name;
     String type;
     if (s.hasNext()) {
@@ -81,7 +281,7 @@ public class AnimationReader {
     builder.declareShape(name, type);
   }
 
-  private static <Doc> void readMotion(Scanner s, AnimationBuilder<Doc> builder) {
+  private static <Doc> void readMotion(AnimationTokenizer s, AnimationBuilder<Doc> builder) {
     String[] fieldNames = new String[]{
       "initial time",
       "initial x-coordinate", "initial y-coordinate",
@@ -107,7 +307,7 @@ public class AnimationReader {
             vals[8], vals[9], vals[10], vals[11], vals[12], vals[13], vals[14], vals[15]);
   }
   
-  private static int getInt(Scanner s, String label, String fieldName) {
+  private static int getInt(AnimationTokenizer s, String label, String fieldName) {
     if (s.hasNextInt()) {
       return s.nextInt();
     } else if (s.hasNext()) {
@@ -0,0 +1,131 @@
+package cs5004.animator.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A builder that records the calls made to it, so they can be replayed in the same order into
+ * another builder later. The calls are stored in flat arrays, since an animation file can hold
+ * many thousands of motions.
+ */
+final class AnimationRecorder implements AnimationBuilder<AnimationRecorder> {
+
+  private static final byte CANVAS = 0;
+  private static final byte SHAPE = 1;
+  private static final byte MOTION = 2;
+
+  private byte[] kinds = new byte[256];
+  private int count = 0;
+  private final List<String> names = new ArrayList<>();
+  private int[] values = new int[4096];
+  private int valueCount = 0;
+  private int shapeCount = 0;
+  private int motionCount = 0;
+
+  @Override
+  public AnimationRecorder build() {
+    return this;
+  }
+
+  @Override
+  public AnimationBuilder<AnimationRecorder> setBounds(int x, int y, int width, int height) {
+    this.addKind(CANVAS);
+    this.addValues(x, y, width, height);
+    return this;
+  }
+
+  @Override
+  public AnimationBuilder<AnimationRecorder> declareShape(String name, String type) {
+    this.addKind(SHAPE);
+    this.shapeCount++;
+    this.names.add(name);
+    this.names.add(type);
+    return this;
+  }
+
+  @Override
+  public AnimationBuilder<AnimationRecorder> addMotion(String name, int t1, int x1, int y1,
+      int w1, int h1, int r1, int g1, int b1, int t2, int x2, int y2, int w2, int h2, int r2,
+      int g2, int b2) {
+    this.addKind(MOTION);
+    this.motionCount++;
+    this.names.add(name);
+    this.addValues(t1, x1, y1, w1, h1, r1, g1, b1, t2, x2, y2, w2, h2, r2, g2, b2);
+    return this;
+  }
+
+  /**
+   * Returns the number of shapes declared.
+   *
+   * @return the number of shapes
+   */
+  int getShapeCount() {
+    return this.shapeCount;
+  }
+
+  /**
+   * Returns the number of motions added.
+   *
+   * @return the number of motions
+   */
+  int getMotionCount() {
+    return this.motionCount;
+  }
+
+  /**
+   * Makes the recorded calls on the given builder, in the order they were recorded.
+   *
+   * @param builder the builder
+   */
+  void replay(AnimationBuilder<?> builder) {
+    int name = 0;
+    int v = 0;
+    int[] a = this.values;
+    for (int i = 0; i < this.count; i++) {
+      switch (this.kinds[i]) {
+        case CANVAS:
+          builder.setBounds(a[v], a[v + 1], a[v + 2], a[v + 3]);
+          v += 4;
+          break;
+        case SHAPE:
+          builder.declareShape(this.names.get(name), this.names.get(name + 1));
+          name += 2;
+          break;
+        default:
+          builder.addMotion(this.names.get(name++),
+              a[v], a[v + 1], a[v + 2], a[v + 3], a[v + 4], a[v + 5], a[v + 6], a[v + 7],
+              a[v + 8], a[v + 9], a[v + 10], a[v + 11], a[v + 12], a[v + 13], a[v + 14],
+              a[v + 15]);
+          v += 16;
+          break;
+      }
+    }
+  }
+
+  /**
+   * Records the kind of a call.
+   *
+   * @param kind the kind of the call
+   */
+  private void addKind(byte kind) {
+    if (this.count == this.kinds.length) {
+      this.kinds = Arrays.copyOf(this.kinds, this.count * 2);
+    }
+    this.kinds[this.count++] = kind;
+  }
+
+  /**
+   * Records the integer arguments of a call.
+   *
+   * @param args the arguments
+   */
+  private void addValues(int... args) {
+    if (this.valueCount + args.length > this.values.length) {
+      this.values = Arrays.copyOf(this.values,
+          Math.max(this.values.length * 2, this.valueCount + args.length));
+    }
+    System.arraycopy(args, 0, this.values, this.valueCount, args.length);
+    this.valueCount += args.length;
+  }
+}
@@ -0,0 +1,249 @@
+package cs5004.animator.util;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits the text of an animation file into tokens. Tokens are separated by whitespace, and a '#'
+ * starts a comment that runs to the end of the line. The tokenizer behaves like a
+ * {@link java.util.Scanner} using the delimiter {@code (\p{Space}+|#.*)+}, but reads the source
+ * into a reusable buffer and parses integers directly from it, without regular expressions or
+ * intermediate strings. As with a scanner, an exception thrown by the source is treated as the end
+ * of the input.
+ */
+final class AnimationTokenizer {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final char LINE_SEPARATOR = (char) 0x2028;
+  private static final char PARAGRAPH_SEPARATOR = (char) 0x2029;
+
+  private final Readable source;
+  private char[] buffer = new char[BUFFER_SIZE];
+  // The unread input is between position and limit
+  private int position = 0;
+  private int limit = 0;
+  private boolean isEnd = false;
+  // Length of the token at position, or -1 if the next token was not found yet
+  private int tokenLength = -1;
+
+  /**
+   * Constructs a tokenizer that reads from the given source.
+   *
+   * @param source the source of the animation
+   */
+  AnimationTokenizer(Readable source) {
+    this.source = source;
+  }
+
+  /**
+   * Returns whether there is another token in the input.
+   *
+   * @return true if there is another token, false otherwise
+   */
+  boolean hasNext() {
+    return this.findToken();
+  }
+
+  /**
+   * Returns the next token.
+   *
+   * @return the next token
+   * @throws NoSuchElementException if there are no more tokens
+   */
+  String next() {
+    if (!this.findToken()) {
+      throw new NoSuchElementException();
+    }
+    String token = new String(this.buffer, this.position, this.tokenLength);
+    this.position += this.tokenLength;
+    this.tokenLength = -1;
+    return token;
+  }
+
+  /**
+   * Returns whether the next token is an integer, which is an optional sign followed by decimal
+   * digits whose value fits in an int.
+   *
+   * @return true if the next token is an integer, false otherwise
+   */
+  boolean hasNextInt() {
+    if (!this.findToken()) {
+      return false;
+    }
+    int i = this.position;
+    int end = this.position + this.tokenLength;
+    if (this.buffer[i] == '-' || this.buffer[i] == '+') {
+      i++;
+    }
+    if (i == end) {
+      return false;
+    }
+    long limit = this.buffer[this.position] == '-'
+        ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+    long value = 0;
+    for (; i < end; i++) {
+      char c = this.buffer[i];
+      if (c < '0' || c > '9') {
+        return false;
+      }
+      value = value * 10 + (c - '0');
+      if (value > limit) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the next token as an integer.
+   *
+   * @return the next integer
+   * @throws NoSuchElementException if the next token is not an integer
+   */
+  int nextInt() {
+    if (!this.hasNextInt()) {
+      throw new NoSuchElementException();
+    }
+    int i = this.position;
+    int end = this.position + this.tokenLength;
+    boolean isNegative = this.buffer[i] == '-';
+    if (isNegative || this.buffer[i] == '+') {
+      i++;
+    }
+    // Accumulating negatively reaches Integer.MIN_VALUE without overflowing
+    int value = 0;
+    for (; i < end; i++) {
+      value = value * 10 - (this.buffer[i] - '0');
+    }
+    this.position = end;
+    this.tokenLength = -1;
+    return isNegative ? value : -value;
+  }
+
+  /**
+   * Returns the rest of the current line, without the line terminator, and moves to the next line.
+   *
+   * @return the rest of the line
+   * @throws NoSuchElementException if there is no more input
+   */
+  String nextLine() {
+    this.tokenLength = -1;
+    StringBuilder line = new StringBuilder();
+    boolean hasInput = false;
+    while (this.position < this.limit || this.fill()) {
+      hasInput = true;
+      char c = this.buffer[this.position++];
+      if (c == '\r') {
+        if ((this.position < this.limit || this.fill()) && this.buffer[this.position] == '\n') {
+          this.position++;
+        }
+        return line.toString();
+      }
+      if (isLineTerminator(c)) {
+        return line.toString();
+      }
+      line.append(c);
+    }
+    if (!hasInput) {
+      throw new NoSuchElementException("No line found");
+    }
+    return line.toString();
+  }
+
+  /**
+   * Skips the delimiters before the next token and finds where the token ends.
+   *
+   * @return true if there is a token, false if the input ended
+   */
+  private boolean findToken() {
+    if (this.tokenLength >= 0) {
+      return true;
+    }
+    while (true) {
+      if (this.position == this.limit && !this.fill()) {
+        return false;
+      }
+      char c = this.buffer[this.position];
+      if (c == '#') {
+        while ((this.position < this.limit || this.fill())
+            && !isLineTerminator(this.buffer[this.position])) {
+          this.position++;
+        }
+      } else if (isSpace(c)) {
+        this.position++;
+      } else {
+        break;
+      }
+    }
+    int length = 0;
+    while (this.position + length < this.limit || this.fill()) {
+      char c = this.buffer[this.position + length];
+      if (isSpace(c) || c == '#') {
+        break;
+      }
+      length++;
+    }
+    this.tokenLength = length;
+    return true;
+  }
+
+  /**
+   * Reads more input into the buffer, after moving the unread input to the start of the buffer.
+   * The buffer grows when it is full of unread input.
+   *
+   * @return true if more input was read, false if the input ended
+   */
+  private boolean fill() {
+    if (this.isEnd) {
+      return false;
+    }
+    int unread = this.limit - this.position;
+    if (unread == this.buffer.length) {
+      char[] larger = new char[this.buffer.length * 2];
+      System.arraycopy(this.buffer, this.position, larger, 0, unread);
+      this.buffer = larger;
+    } else if (this.position > 0) {
+      System.arraycopy(this.buffer, this.position, this.buffer, 0, unread);
+    }
+    this.position = 0;
+    this.limit = unread;
+    int read;
+    try {
+      do {
+        read = this.source.read(CharBuffer.wrap(this.buffer, this.limit,
+            this.buffer.length - this.limit));
+      }
+      while (read == 0);
+    } catch (IOException e) {
+      read = -1;
+    }
+    if (read < 0) {
+      this.isEnd = true;
+      return false;
+    }
+    this.limit += read;
+    return true;
+  }
+
+  /**
+   * Returns whether the given character is whitespace, as matched by {@code \p{Space}}.
+   *
+   * @param c the character
+   * @return true if the character is whitespace, false otherwise
+   */
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  /**
+   * Returns whether the given character ends a line, which ends a comment.
+   *
+   * @param c the character
+   * @return true if the character is a line terminator, false otherwise
+   */
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == LINE_SEPARATOR
+        || c == PARAGRAPH_SEPARATOR;
+  }
+}
@@ -0,0 +1,177 @@
+package cs5004.animator.util;
+
+import cs5004.animator.monitor.ParseEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A helper to read animations compiled in the binary format written by
+ * {@link BinaryAnimationWriter}, and construct a model with an {@link AnimationBuilder}. The file
+ * is mapped in memory and the builder is fed directly from the integers stored in it, so nothing is
+ * tokenized or parsed. All integers are stored in big-endian order, and the file is made of:
+ *
+ * <ul>
+ *   <li>a header: the magic number {@link #MAGIC}, the version {@link #VERSION}, and the x, y,
+ *   width and height of the canvas;</li>
+ *   <li>a shape table: the number of shapes, then for every shape in the order they are drawn, the
+ *   length of its name in bytes, its name in UTF-8, its type (0 for a rectangle and 1 for an
+ *   ellipse) as a byte, and its number of keyframes;</li>
+ *   <li>padding up to the next multiple of four bytes;</li>
+ *   <li>the keyframes of every shape, in the order of the shape table: the tick, x, y, width,
+ *   height and color packed as 0xRRGGBB of every keyframe. Each pair of consecutive keyframes of a
+ *   shape is one of its motions.</li>
+ * </ul>
+ */
+public final class BinaryAnimationReader {
+
+  /**
+   * The number at the start of every binary animation file, the characters "EZAN".
+   */
+  public static final int MAGIC = 0x455A414E;
+
+  /**
+   * The version of the binary format.
+   */
+  public static final int VERSION = 1;
+
+  // Number of integers stored for a keyframe
+  static final int KEYFRAME_INTS = 6;
+
+  /**
+   * This class is not meant to be instantiated.
+   */
+  private BinaryAnimationReader() {
+  }
+
+  /**
+   * Returns whether the file at the given path starts with the magic number of the binary format.
+   *
+   * @param path the path of the file
+   * @return true if the file is a binary animation file, false otherwise
+   * @throws IOException if the file cannot be read
+   */
+  public static boolean isBinaryFile(String path) throws IOException {
+    try (InputStream in = Files.newInputStream(Paths.get(path))) {
+      int magic = 0;
+      for (int i = 0; i < 4; i++) {
+        int b = in.read();
+        if (b < 0) {
+          return false;
+        }
+        magic = (magic << 8) | b;
+      }
+      return magic == MAGIC;
+    }
+  }
+
+  /**
+   * A factory for producing new animations from a binary animation file. The canvas is set first,
+   * then every shape is declared and immediately followed by its motions.
+   *
+   * @param path    the path of the binary animation file
+   * @param builder a builder for helping to construct a new animation
+   * @param <Doc>   the model interface type describing animations
+   * @return a new animation constructed from the data in the file
+   * @throws IOException           if the file cannot be read
+   * @throws IllegalStateException if the file is not a valid binary animation file
+   */
+  public static <Doc> Doc parseFile(String path, AnimationBuilder<Doc> builder)
+      throws IOException {
+    Objects.requireNonNull(path, "Must have non-null path");
+    Objects.requireNonNull(builder, "Must provide a non-null AnimationBuilder");
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Binary animation file is too large: " + path);
+      }
+      return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), builder);
+    }
+  }
+
+  /**
+   * Produces a new animation from a buffer holding a binary animation file.
+   *
+   * @param buffer  the content of the file
+   * @param builder a builder for helping to construct a new animation
+   * @param <Doc>   the model interface type describing animations
+   * @return a new animation constructed from the data in the buffer
+   * @throws IllegalStateException if the buffer does not hold a valid binary animation file
+   */
+  static <Doc> Doc parse(ByteBuffer buffer, AnimationBuilder<Doc> builder) {
+    ParseEvent event = new ParseEvent();
+    event.begin();
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw new IllegalStateException("Not a binary animation file");
+      }
+      int version = buffer.getInt();
+      if (version != VERSION) {
+        throw new IllegalStateException("Unsupported binary animation version: " + version);
+      }
+      builder.setBounds(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+      int shapeCount = readCount(buffer);
+      String[] names = new String[shapeCount];
+      String[] types = new String[shapeCount];
+      int[] keyframeCounts = new int[shapeCount];
+      for (int i = 0; i < shapeCount; i++) {
+        byte[] name = new byte[readCount(buffer)];
+        buffer.get(name);
+        names[i] = new String(name, StandardCharsets.UTF_8);
+        types[i] = buffer.get() == 0 ? "rectangle" : "ellipse";
+        keyframeCounts[i] = readCount(buffer);
+      }
+      buffer.position((buffer.position() + 3) & ~3);
+      IntBuffer keyframes = buffer.slice().asIntBuffer();
+      int[] k = new int[2 * KEYFRAME_INTS];
+      for (int i = 0; i < shapeCount; i++) {
+        builder.declareShape(names[i], types[i]);
+        if (keyframeCounts[i] == 0) {
+          continue;
+        }
+        keyframes.get(k, KEYFRAME_INTS, KEYFRAME_INTS);
+        for (int j = 1; j < keyframeCounts[i]; j++) {
+          System.arraycopy(k, KEYFRAME_INTS, k, 0, KEYFRAME_INTS);
+          keyframes.get(k, KEYFRAME_INTS, KEYFRAME_INTS);
+          builder.addMotion(names[i],
+              k[0], k[1], k[2], k[3], k[4], k[5] >>> 16, (k[5] >>> 8) & 0xFF, k[5] & 0xFF,
+              k[6], k[7], k[8], k[9], k[10], k[11] >>> 16, (k[11] >>> 8) & 0xFF, k[11] & 0xFF);
+        }
+        event.motions += keyframeCounts[i] - 1;
+      }
+      Doc doc = builder.build();
+      event.end();
+      if (event.shouldCommit()) {
+        event.format = "binary";
+        event.shapes = shapeCount;
+        event.commit();
+      }
+      return doc;
+    } catch (BufferUnderflowException e) {
+      throw new IllegalStateException("Binary animation file ends unexpectedly");
+    }
+  }
+
+  /**
+   * Reads a number of items from the buffer.
+   *
+   * @param buffer the buffer
+   * @return the number of items
+   * @throws IllegalStateException if the number is negative
+   */
+  private static int readCount(ByteBuffer buffer) {
+    int count = buffer.getInt();
+    if (count < 0) {
+      throw new IllegalStateException("Invalid count in binary animation file: " + count);
+    }
+    return count;
+  }
+}
@@ -0,0 +1,101 @@
+package cs5004.animator.util;
+
+import cs5004.animator.model.IAnimatedShape;
+import cs5004.animator.model.IAnimatorModel;
+import cs5004.animator.model.Keyframe;
+import cs5004.animator.model.shapeutil.Color;
+import cs5004.animator.monitor.ExportEvent;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A helper to compile the animation of a model into the binary format read by
+ * {@link BinaryAnimationReader}. The motions of a shape follow each other, so each shape is written
+ * as the list of its keyframes. The reader adds the keyframes of a shape to the builder by its
+ * name, so the ids of the shapes of a compiled animation must be distinct.
+ */
+public final class BinaryAnimationWriter {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * This class is not meant to be instantiated.
+   */
+  private BinaryAnimationWriter() {
+  }
+
+  /**
+   * Writes the animation of the given model to the given stream in the binary format. The stream
+   * is flushed but not closed.
+   *
+   * @param model the model of the animation
+   * @param out   the stream to write to
+   * @throws IOException              if the stream cannot be written to
+   * @throws IllegalArgumentException if two shapes of the model have the same id, in which case
+   *                                  nothing is written
+   */
+  public static void write(IAnimatorModel model, OutputStream out) throws IOException {
+    Objects.requireNonNull(model, "Must have non-null model");
+    Objects.requireNonNull(out, "Must have non-null output stream");
+    List<IAnimatedShape> shapes = model.getAnimatedShapes();
+    Set<String> ids = new HashSet<>();
+    for (IAnimatedShape s : shapes) {
+      if (!ids.add(s.getId())) {
+        throw new IllegalArgumentException("Shape " + s.getId()
+            + " is declared twice, which the binary format cannot hold");
+      }
+    }
+    ExportEvent event = new ExportEvent();
+    event.begin();
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+    data.writeInt(BinaryAnimationReader.MAGIC);
+    data.writeInt(BinaryAnimationReader.VERSION);
+    data.writeInt(model.getCanvasStartingX());
+    data.writeInt(model.getCanvasStartingY());
+    data.writeInt(model.getCanvasWidth());
+    data.writeInt(model.getCanvasHeight());
+
+    data.writeInt(shapes.size());
+    for (IAnimatedShape s : shapes) {
+      byte[] name = s.getId().getBytes(StandardCharsets.UTF_8);
+      data.writeInt(name.length);
+      data.write(name);
+      data.writeByte(s.getShape().isOval() ? 1 : 0);
+      data.writeInt(s.getMotions().isEmpty() ? 0 : s.getKeyframes().size());
+    }
+    while (data.size() % 4 != 0) {
+      data.writeByte(0);
+    }
+
+    for (IAnimatedShape s : shapes) {
+      if (s.getMotions().isEmpty()) {
+        continue;
+      }
+      for (Keyframe k : s.getKeyframes()) {
+        Color c = k.getColor();
+        data.writeInt(k.getTick());
+        data.writeInt(k.getLocation().getX());
+        data.writeInt(k.getLocation().getY());
+        data.writeInt(k.getWidth());
+        data.writeInt(k.getHeight());
+        data.writeInt((c.getR() << 16) | (c.getG() << 8) | c.getB());
+      }
+    }
+    data.flush();
+    event.end();
+    if (event.shouldCommit()) {
+      event.format = "binary";
+      event.shapes = shapes.size();
+      event.size = data.size();
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package cs5004.animator.view;
+
+import cs5004.animator.model.Frame;
+import cs5004.animator.model.IAnimatorModel;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents a view that plays an animation as fast as possible without showing it, to measure how
+ * quickly the model moves from tick to tick. Every iteration applies every tick of the animation to
+ * the model, in order, and reads every visible shape of the frame it publishes, as the visual views
+ * do before drawing it. A number of warm-up iterations are played first and not measured, so the
+ * code is compiled before it is timed. The view describes the speed of each measured iteration in
+ * ticks per second, in nanoseconds per shape and tick, and in bytes allocated per tick, followed by
+ * the same numbers over all the measured iterations.
+ */
+public class BenchView implements ITextualView {
+
+  private final IAnimatorModel model;
+  private final String outputFileName;
+  private final int iterations;
+  private final int warmup;
+  // Sum of the visible shapes read, so reading them cannot be optimized away
+  private long checksum = 0;
+
+  /**
+   * Constructs a bench view for an animation.
+   *
+   * @param model          the model of the animation
+   * @param outputFileName the output file name, or "default" to write to System.out
+   * @param iterations     the number of measured iterations
+   * @param warmup         the number of warm-up iterations
+   * @throws IllegalArgumentException if the model is null, if the number of iterations is less
+   *                                  than 1 or if the number of warm-up iterations is negative
+   */
+  public BenchView(IAnimatorModel model, String outputFileName, int iterations, int warmup)
+      throws IllegalArgumentException {
+    if (model == null) {
+      throw new IllegalArgumentException("Model cannot be null");
+    }
+    if (iterations < 1) {
+      throw new IllegalArgumentException("Iterations must be positive");
+    }
+    if (warmup < 0) {
+      throw new IllegalArgumentException("Warm-up iterations cannot be negative");
+    }
+    this.model = model;
+    this.outputFileName = outputFileName;
+    this.iterations = iterations;
+    this.warmup = warmup;
+  }
+
+  @Override
+  public void writeTo(Writer out) throws IOException {
+    int lastTick = this.model.getLastTick();
+    this.model.applyTick(1);
+    int shapes = this.model.getPublishedFrame().getSize();
+    out.write(String.format("%d shapes, %d ticks, %d warm-up and %d measured iterations%n",
+        shapes, lastTick, this.warmup, this.iterations));
+    for (int i = 0; i < this.warmup; i++) {
+      this.play(lastTick);
+    }
+
+    long totalNanos = 0;
+    long totalBytes = 0;
+    for (int i = 1; i <= this.iterations; i++) {
+      Map<Long, Long> allocated = getAllocatedBytes();
+      long start = System.nanoTime();
+      this.play(lastTick);
+      long nanos = System.nanoTime() - start;
+      long bytes = getAllocatedBytesSince(allocated);
+      totalNanos += nanos;
+      totalBytes = bytes < 0 || totalBytes < 0 ? -1 : totalBytes + bytes;
+      out.write("Iteration " + i + ": " + describe(lastTick, shapes, nanos, bytes));
+      out.write(System.lineSeparator());
+    }
+    out.write("Result: " + describe((long) lastTick * this.iterations, shapes, totalNanos,
+        totalBytes));
+    out.write(System.lineSeparator());
+    // Never true, but keeps the shapes read alive
+    if (this.checksum == Long.MIN_VALUE) {
+      out.write(System.lineSeparator());
+    }
+  }
+
+  /**
+   * Applies every tick of the animation in order, reading the visible shapes of each frame.
+   *
+   * @param lastTick the last tick of the animation
+   */
+  private void play(int lastTick) {
+    long sum = this.checksum;
+    for (int tick = 1; tick <= lastTick; tick++) {
+      this.model.applyTick(tick);
+      Frame frame = this.model.getPublishedFrame();
+      for (int i = 0; i < frame.getSize(); i++) {
+        if (frame.isVisible(i)) {
+          sum += frame.getX(i) + frame.getY(i) + frame.getWidth(i) + frame.getHeight(i)
+              + frame.getRgb(i) + frame.getType(i);
+        }
+      }
+    }
+    this.checksum = sum;
+  }
+
+  /**
+   * Returns the description of the speed of the ticks played.
+   *
+   * @param ticks  the number of ticks played
+   * @param shapes the number of shapes in the animation
+   * @param nanos  the time taken in nanoseconds
+   * @param bytes  the number of bytes allocated, or -1 if it is not measured
+   * @return the description
+   */
+  private static String describe(long ticks, int shapes, long nanos, long bytes) {
+    double seconds = Math.max(1, nanos) / 1e9;
+    long played = Math.max(1, ticks);
+    String description = String.format("%.1f ticks/s, %.2f ns per shape-tick",
+        ticks / seconds, (double) nanos / (played * Math.max(1, shapes)));
+    if (bytes < 0) {
+      return description + ", allocation n/a";
+    }
+    return description + String.format(", %.1f bytes per tick", (double) bytes / played);
+  }
+
+  /**
+   * Returns the number of bytes allocated so far by each live thread, by id, or null if the
+   * virtual machine does not measure it. All the threads are measured, since ticks of large
+   * animations are applied on the threads of the common fork-join pool.
+   *
+   * @return the number of bytes allocated by each thread, or null
+   */
+  private static Map<Long, Long> getAllocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+      return null;
+    }
+    com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+    if (!sunThreads.isThreadAllocatedMemorySupported()
+        || !sunThreads.isThreadAllocatedMemoryEnabled()) {
+      return null;
+    }
+    long[] ids = sunThreads.getAllThreadIds();
+    long[] bytes = sunThreads.getThreadAllocatedBytes(ids);
+    Map<Long, Long> allocated = new HashMap<>();
+    for (int i = 0; i < ids.length; i++) {
+      // Threads that ended since their ids were read report -1
+      if (bytes[i] >= 0) {
+        allocated.put(ids[i], bytes[i]);
+      }
+    }
+    return allocated;
+  }
+
+  /**
+   * Returns the number of bytes allocated by all the threads since the given numbers were read, or
+   * -1 if they are not measured. Threads started since then count from zero, and what was
+   * allocated by threads that ended since then is left out.
+   *
+   * @param before the number of bytes allocated by each thread, or null
+   * @return the number of bytes allocated since then, or -1
+   */
+  private static long getAllocatedBytesSince(Map<Long, Long> before) {
+    Map<Long, Long> after = before == null ? null : getAllocatedBytes();
+    if (after == null) {
+      return -1;
+    }
+    long bytes = 0;
+    for (Map.Entry<Long, Long> e : after.entrySet()) {
+      bytes += e.getValue() - before.getOrDefault(e.getKey(), 0L);
+    }
+    return bytes;
+  }
+
+  @Override
+  public String getOvalAsString() {
+    return "oval";
+  }
+
+  @Override
+  public String getRectangleAsString() {
+    return "rectangle";
+  }
+
+  @Override
+  public void write() {
+    try {
+      if (outputFileName.equals("default")) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+        this.writeTo(out);
+        out.flush();
+      } else {
+        try (Writer out = new BufferedWriter(new FileWriter(this.outputFileName))) {
+          this.writeTo(out);
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failure to write to file");
+    }
+  }
+}
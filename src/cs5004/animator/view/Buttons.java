@@ -12,7 +12,9 @@ public enum Buttons {
   DISABLE_LOOPING("Disable Looping"),
   SET_SPEED("Set Speed (ticks / second)"),
   SAVE("Save"),
-  LOAD("Load");
+  LOAD("Load"),
+  CANCEL("Cancel"),
+  PERFORMANCE("Performance");
 
   private final String name;
 
@@ -0,0 +1,227 @@
+package cs5004.animator.view;
+
+import cs5004.animator.model.Frame;
+
+import java.util.Arrays;
+
+/**
+ * Represents a grid of buckets over the visible shapes of a frame, to find the shapes that may
+ * intersect a rectangle without checking every shape of the frame. Each cell of the grid lists the
+ * shapes whose bounding box overlaps it, in the order they are drawn. Shapes covering many cells,
+ * such as backgrounds, are kept in a separate list that every query returns, so the grid stays
+ * proportional to the number of shapes. The grid is built again for every frame, and all of its
+ * arrays are reused, so building it does not create any objects once they are large enough.
+ */
+final class FrameGrid {
+
+  // Smallest side of a cell in pixels
+  private static final int MIN_CELL_SIZE = 64;
+  // Largest number of cells along each side of the grid
+  private static final int MAX_CELLS_PER_SIDE = 128;
+  // Largest number of cells a shape can be listed in before it is kept in the list of large shapes
+  private static final int MAX_CELLS_PER_SHAPE = 16;
+
+  // Bounds of the grid in the coordinates of the frame
+  private int originX = 0;
+  private int originY = 0;
+  private int cellSize = MIN_CELL_SIZE;
+  private int columns = 0;
+  private int rows = 0;
+  // The shapes of cell c are cellShapes[cellStart[c]] to cellShapes[cellStart[c + 1] - 1]
+  private int[] cellStart = new int[1];
+  private int[] cellShapes = new int[0];
+  private int[] largeShapes = new int[0];
+  private int largeCount = 0;
+  // The query each shape was last returned by, so a shape listed in several cells is returned once
+  private int[] lastQuery = new int[0];
+  private int query = 0;
+  private int[] result = new int[0];
+  private int resultCount = 0;
+
+  /**
+   * Builds the grid over the visible shapes of the given frame.
+   *
+   * @param frame the frame
+   */
+  void build(Frame frame) {
+    int n = frame.getSize();
+    if (this.lastQuery.length < n) {
+      this.lastQuery = new int[n];
+      this.result = new int[n];
+      this.largeShapes = new int[n];
+    }
+    this.largeCount = 0;
+    int minX = Integer.MAX_VALUE;
+    int minY = Integer.MAX_VALUE;
+    long maxX = Integer.MIN_VALUE;
+    long maxY = Integer.MIN_VALUE;
+    for (int i = 0; i < n; i++) {
+      if (frame.isVisible(i)) {
+        minX = Math.min(minX, frame.getX(i));
+        minY = Math.min(minY, frame.getY(i));
+        maxX = Math.max(maxX, (long) frame.getX(i) + frame.getWidth(i));
+        maxY = Math.max(maxY, (long) frame.getY(i) + frame.getHeight(i));
+      }
+    }
+    if (minX == Integer.MAX_VALUE) {
+      this.columns = 0;
+      this.rows = 0;
+      this.cellStart[0] = 0;
+      return;
+    }
+    long span = Math.max(maxX - minX, maxY - minY) + 1;
+    this.originX = minX;
+    this.originY = minY;
+    this.cellSize = (int) Math.max(MIN_CELL_SIZE,
+        (span + MAX_CELLS_PER_SIDE - 1) / MAX_CELLS_PER_SIDE);
+    this.columns = (int) ((maxX - minX) / this.cellSize) + 1;
+    this.rows = (int) ((maxY - minY) / this.cellSize) + 1;
+    int cells = this.columns * this.rows;
+    if (this.cellStart.length < cells + 1) {
+      this.cellStart = new int[cells + 1];
+    } else {
+      Arrays.fill(this.cellStart, 0, cells + 1, 0);
+    }
+
+    // Count the shapes of every cell, then place them after the shapes of the cells before it
+    int listed = 0;
+    for (int i = 0; i < n; i++) {
+      if (frame.isVisible(i) && !this.isLarge(frame, i)) {
+        for (int row = this.getRow(frame.getY(i));
+            row <= this.getRow((long) frame.getY(i) + frame.getHeight(i)); row++) {
+          for (int column = this.getColumn(frame.getX(i));
+              column <= this.getColumn((long) frame.getX(i) + frame.getWidth(i)); column++) {
+            this.cellStart[row * this.columns + column + 1]++;
+            listed++;
+          }
+        }
+      }
+    }
+    for (int c = 0; c < cells; c++) {
+      this.cellStart[c + 1] += this.cellStart[c];
+    }
+    if (this.cellShapes.length < listed) {
+      this.cellShapes = new int[Math.max(listed, this.cellShapes.length * 2)];
+    }
+    // Move every start to the next cell, so the start of a cell is used as the position to fill it
+    // and is back in place once the cell is filled
+    for (int c = cells; c > 0; c--) {
+      this.cellStart[c] = this.cellStart[c - 1];
+    }
+    this.cellStart[0] = 0;
+    for (int i = 0; i < n; i++) {
+      if (!frame.isVisible(i)) {
+        continue;
+      }
+      if (this.isLarge(frame, i)) {
+        this.largeShapes[this.largeCount++] = i;
+        continue;
+      }
+      for (int row = this.getRow(frame.getY(i));
+          row <= this.getRow((long) frame.getY(i) + frame.getHeight(i)); row++) {
+        for (int column = this.getColumn(frame.getX(i));
+            column <= this.getColumn((long) frame.getX(i) + frame.getWidth(i)); column++) {
+          this.cellShapes[this.cellStart[row * this.columns + column + 1]++] = i;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the shapes that may intersect the given rectangle, in the order they are drawn. The
+   * shapes are the ones listed in the cells overlapping the rectangle, so some of them may not
+   * actually intersect it.
+   *
+   * @param x      the x coordinate of the rectangle in the coordinates of the frame
+   * @param y      the y coordinate of the rectangle in the coordinates of the frame
+   * @param width  the width of the rectangle
+   * @param height the height of the rectangle
+   * @return the positions of the shapes in the frame, valid until the next query, followed by
+   *         unused positions; the number of shapes is returned by {@link #getResultCount()}
+   */
+  int[] query(int x, int y, int width, int height) {
+    this.resultCount = 0;
+    if (++this.query == 0) {
+      // The query numbers wrapped around, so the marks of the shapes are cleared
+      Arrays.fill(this.lastQuery, 0);
+      this.query = 1;
+    }
+    for (int i = 0; i < this.largeCount; i++) {
+      this.add(this.largeShapes[i]);
+    }
+    long right = (long) x + width;
+    long bottom = (long) y + height;
+    if (this.columns > 0 && right >= this.originX && bottom >= this.originY
+        && x <= this.originX + (long) this.columns * this.cellSize
+        && y <= this.originY + (long) this.rows * this.cellSize) {
+      int lastRow = this.getRow(bottom);
+      int lastColumn = this.getColumn(right);
+      for (int row = this.getRow(y); row <= lastRow; row++) {
+        for (int column = this.getColumn(x); column <= lastColumn; column++) {
+          int cell = row * this.columns + column;
+          for (int k = this.cellStart[cell]; k < this.cellStart[cell + 1]; k++) {
+            this.add(this.cellShapes[k]);
+          }
+        }
+      }
+    }
+    Arrays.sort(this.result, 0, this.resultCount);
+    return this.result;
+  }
+
+  /**
+   * Returns the number of shapes returned by the last query.
+   *
+   * @return the number of shapes
+   */
+  int getResultCount() {
+    return this.resultCount;
+  }
+
+  /**
+   * Adds a shape to the result of the current query, unless it was already added.
+   *
+   * @param shape the position of the shape in the frame
+   */
+  private void add(int shape) {
+    if (this.lastQuery[shape] != this.query) {
+      this.lastQuery[shape] = this.query;
+      this.result[this.resultCount++] = shape;
+    }
+  }
+
+  /**
+   * Returns whether the given shape covers too many cells to be listed in each of them.
+   *
+   * @param frame the frame
+   * @param i     the position of the shape in the frame
+   * @return true if the shape is kept in the list of large shapes, false otherwise
+   */
+  private boolean isLarge(Frame frame, int i) {
+    long columns = this.getColumn((long) frame.getX(i) + frame.getWidth(i))
+        - this.getColumn(frame.getX(i)) + 1;
+    long rows = this.getRow((long) frame.getY(i) + frame.getHeight(i))
+        - this.getRow(frame.getY(i)) + 1;
+    return columns * rows > MAX_CELLS_PER_SHAPE;
+  }
+
+  /**
+   * Returns the column of the grid holding the given x coordinate, clamped to the grid.
+   *
+   * @param x the x coordinate in the coordinates of the frame
+   * @return the column
+   */
+  private int getColumn(long x) {
+    return (int) Math.max(0, Math.min(this.columns - 1, (x - this.originX) / this.cellSize));
+  }
+
+  /**
+   * Returns the row of the grid holding the given y coordinate, clamped to the grid.
+   *
+   * @param y the y coordinate in the coordinates of the frame
+   * @return the row
+   */
+  private int getRow(long y) {
+    return (int) Math.max(0, Math.min(this.rows - 1, (y - this.originY) / this.cellSize));
+  }
+}
@@ -32,4 +32,18 @@ public interface IInteractiveView extends IVisualView {
    * animation.
    */
   void refreshAnimation();
+
+  /**
+   * Shows the progress of a file being loaded or saved in the background, along with a way to
+   * cancel it. Loading and saving other files is not possible until the progress is hidden.
+   *
+   * @param description the description of the task
+   * @param percent     the progress of the task from 0 to 100, or a negative number if unknown
+   */
+  void showTaskProgress(String description, int percent);
+
+  /**
+   * Hides the progress of the file being loaded or saved, once it is done or cancelled.
+   */
+  void hideTaskProgress();
 }
@@ -1,5 +1,8 @@
 package cs5004.animator.view;
 
+import java.io.IOException;
+import java.io.Writer;
+
 /**
  * Represents a textual view for an animation. The textual view will be used for both text views and
  * svg views. This interface contains methods that are common to both text and svg views.
@@ -7,11 +10,22 @@ package cs5004.animator.view;
 public interface ITextualView {
 
   /**
-   * Retrieves the textual representation of the view.
+   * Retrieves the textual representation of the view, as written by {@link #writeTo}.
    *
    * @return the textual representation of the view
    */
-  String getText();
+  default String getText() {
+    return StringOutput.of(this::writeTo);
+  }
+
+  /**
+   * Writes the textual representation of the view to the given writer as it is produced, without
+   * holding all of it in memory. The writer is neither flushed nor closed.
+   *
+   * @param out the writer
+   * @throws IOException if the writer fails
+   */
+  void writeTo(Writer out) throws IOException;
 
   /**
    * Retrieves the textual representation of the type of oval.
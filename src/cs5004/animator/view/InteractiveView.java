@@ -19,6 +19,7 @@ import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JSlider;
 import javax.swing.JTextArea;
@@ -36,6 +37,12 @@ public class InteractiveView extends JFrame implements IInteractiveView, ActionL
   private final VisualViewPanel visualViewPanel;
   private final JPanel buttonPanel;
   private final JSlider progressBar;
+  // Progress of the file being loaded or saved, only visible meanwhile
+  private final JProgressBar taskProgress = new JProgressBar(0, 100);
+  // Last tick the labels of the progress bar were made for
+  private int progressBarLastTick = -1;
+  // Whether the progress bar is being moved to the tick of the model, rather than by the user
+  private boolean isRefreshing = false;
 
   private final Map<Buttons, JButton> buttonsMap;
   private final Map<TextFields, JTextField> textFieldsMap;
@@ -118,10 +125,15 @@ public class InteractiveView extends JFrame implements IInteractiveView, ActionL
   }
 
   /**
-   * Sets the progress bar to the correct tick.
+   * Sets the progress bar to the length of the animation. The labels are only made again when the
+   * last tick of the animation changed.
    */
   private void setProgressBar() {
     int lastTick = model.getLastTick();
+    if (lastTick == this.progressBarLastTick) {
+      return;
+    }
+    this.progressBarLastTick = lastTick;
     this.progressBar.setMaximum(lastTick);
     this.progressBar.setMajorTickSpacing((lastTick - 1) / 4);
     this.progressBar.setPaintTicks(true);
@@ -146,6 +158,11 @@ public class InteractiveView extends JFrame implements IInteractiveView, ActionL
     for (Buttons name : controlButtons) {
       playButtonPanel.add(this.buttonsMap.get(name));
     }
+    // The performance overlay is only drawn by the view, so it needs no controller
+    this.buttonsMap.get(Buttons.PERFORMANCE).addActionListener((e) -> {
+      this.visualViewPanel.setOverlayVisible(!this.visualViewPanel.isOverlayVisible());
+    });
+    playButtonPanel.add(this.buttonsMap.get(Buttons.PERFORMANCE));
     buttonPanel.add(playButtonPanel);
   }
 
@@ -161,15 +178,22 @@ public class InteractiveView extends JFrame implements IInteractiveView, ActionL
     textFieldButtonPanel.add(textFieldsMap.get(TextFields.LOAD_FILE));
     textFieldButtonPanel.add(buttonsMap.get(Buttons.SAVE));
     textFieldButtonPanel.add(textFieldsMap.get(TextFields.SAVE_FILE));
+    this.taskProgress.setStringPainted(true);
+    this.taskProgress.setVisible(false);
+    textFieldButtonPanel.add(this.taskProgress);
+    buttonsMap.get(Buttons.CANCEL).setVisible(false);
+    textFieldButtonPanel.add(buttonsMap.get(Buttons.CANCEL));
     buttonPanel.add(textFieldButtonPanel);
   }
 
   @Override
   public void setListener(IAnimatorController listener) {
     textFieldsMap.get(TextFields.SET_SPEED).setText(Integer.toString(listener.getSpeed()));
-    // The progress bar listener
+    // The progress bar listener, which only follows the changes made by the user
     this.progressBar.addChangeListener((e) -> {
-      listener.setTick(((JSlider) e.getSource()).getValue());
+      if (!this.isRefreshing) {
+        listener.setTick(((JSlider) e.getSource()).getValue());
+      }
     });
     // All the control buttons listener
     for (Buttons b : controlButtons) {
@@ -182,6 +206,7 @@ public class InteractiveView extends JFrame implements IInteractiveView, ActionL
     // The SAVE and LOAD button listeners
     this.buttonsMap.get(Buttons.SAVE).addActionListener(listener);
     this.buttonsMap.get(Buttons.LOAD).addActionListener(listener);
+    this.buttonsMap.get(Buttons.CANCEL).addActionListener(listener);
   }
 
   @Override
@@ -197,11 +222,46 @@ public class InteractiveView extends JFrame implements IInteractiveView, ActionL
   @Override
   public void refreshAnimation() {
     this.setProgressBar();
-    this.progressBar.setValue(model.getTick());
+    this.isRefreshing = true;
+    try {
+      this.progressBar.setValue(model.getTick());
+    } finally {
+      this.isRefreshing = false;
+    }
     this.progressBar.repaint();
     this.visualViewPanel.repaint();
   }
 
+  @Override
+  public void showTaskProgress(String description, int percent) {
+    this.taskProgress.setIndeterminate(percent < 0);
+    this.taskProgress.setValue(Math.max(0, percent));
+    this.taskProgress.setString(description);
+    this.setTaskProgressVisible(true);
+  }
+
+  @Override
+  public void hideTaskProgress() {
+    this.setTaskProgressVisible(false);
+  }
+
+  /**
+   * Shows or hides the progress of the file being loaded or saved and the button to cancel it, and
+   * disables the buttons to load and save files meanwhile.
+   *
+   * @param isVisible true to show the progress, false to hide it
+   */
+  private void setTaskProgressVisible(boolean isVisible) {
+    if (this.taskProgress.isVisible() == isVisible) {
+      return;
+    }
+    this.taskProgress.setVisible(isVisible);
+    this.buttonsMap.get(Buttons.CANCEL).setVisible(isVisible);
+    this.buttonsMap.get(Buttons.LOAD).setEnabled(!isVisible);
+    this.buttonsMap.get(Buttons.SAVE).setEnabled(!isVisible);
+    this.buttonPanel.revalidate();
+  }
+
   @Override
   public void display() {
     this.setVisible(true);
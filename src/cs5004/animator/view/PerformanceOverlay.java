@@ -0,0 +1,114 @@
+package cs5004.animator.view;
+
+import cs5004.animator.monitor.PerformanceMonitor;
+
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Represents the overlay drawn over an animation to show how well it is played: the frames painted
+ * and ticks applied per second against the requested speed, the median and 99th percentile of the
+ * times taken to apply a tick and paint a frame, the ticks skipped and late timer runs, the number
+ * of visible shapes and the allocation rate. The counters of the {@link PerformanceMonitor} are
+ * sampled a few times per second while the overlay is painted, and the numbers shown are measured
+ * over the last second.
+ */
+class PerformanceOverlay {
+
+  // Time between two samples of the counters, in nanoseconds
+  private static final long SAMPLE_PERIOD = 250_000_000L;
+  // Number of sample periods the numbers are measured over
+  private static final int WINDOW_SAMPLES = 4;
+  private static final Color BACKGROUND = new Color(0, 0, 0, 160);
+  private static final int MARGIN = 6;
+
+  private final PerformanceMonitor monitor;
+  private final Deque<PerformanceMonitor.Sample> samples = new ArrayDeque<>();
+  private long lastSampleTime = 0;
+  private String[] lines = {"Measuring..."};
+
+  /**
+   * Constructs an overlay showing the counters of the given monitor.
+   *
+   * @param monitor the monitor
+   */
+  PerformanceOverlay(PerformanceMonitor monitor) {
+    this.monitor = monitor;
+  }
+
+  /**
+   * Paints the overlay in the top left corner of the given area, sampling the counters first when
+   * the last sample is old enough.
+   *
+   * @param g    the graphics to paint with
+   * @param area the visible area of the animation
+   */
+  void paint(Graphics2D g, Rectangle area) {
+    long now = System.nanoTime();
+    if (this.samples.isEmpty() || now - this.lastSampleTime >= SAMPLE_PERIOD) {
+      this.lastSampleTime = now;
+      this.samples.addLast(this.monitor.sample());
+      if (this.samples.size() > WINDOW_SAMPLES + 1) {
+        this.samples.removeFirst();
+      }
+      if (this.samples.size() > 1) {
+        this.lines = describe(this.samples.getFirst(), this.samples.getLast());
+      }
+    }
+
+    FontMetrics metrics = g.getFontMetrics();
+    int width = 0;
+    for (String line : this.lines) {
+      width = Math.max(width, metrics.stringWidth(line));
+    }
+    int lineHeight = metrics.getHeight();
+    g.setColor(BACKGROUND);
+    g.fillRect(area.x, area.y, width + 2 * MARGIN, this.lines.length * lineHeight + 2 * MARGIN);
+    g.setColor(Color.WHITE);
+    for (int i = 0; i < this.lines.length; i++) {
+      g.drawString(this.lines[i], area.x + MARGIN,
+          area.y + MARGIN + i * lineHeight + metrics.getAscent());
+    }
+  }
+
+  /**
+   * Returns the lines describing the performance between two samples.
+   *
+   * @param from the sample taken first
+   * @param to   the sample taken last
+   * @return the lines of the overlay
+   */
+  private static String[] describe(PerformanceMonitor.Sample from,
+      PerformanceMonitor.Sample to) {
+    double allocationRate = to.getAllocationRate(from);
+    return new String[]{
+        String.format("%.1f frames/s, %.1f ticks/s (speed %d)", to.getFramesPerSecond(from),
+            to.getTicksPerSecond(from), to.getRequestedSpeed()),
+        String.format("tick p50 %s, p99 %s", formatTime(to.getTickTime(from, 50)),
+            formatTime(to.getTickTime(from, 99))),
+        String.format("paint p50 %s, p99 %s", formatTime(to.getPaintTime(from, 50)),
+            formatTime(to.getPaintTime(from, 99))),
+        String.format("%d dropped ticks, %d late frames", to.getDroppedTicks(from),
+            to.getLateFrames(from)),
+        String.format("%d visible shapes", to.getVisibleShapes()),
+        allocationRate < 0 ? "allocation n/a"
+            : String.format("allocation %.1f MB/s", allocationRate / (1 << 20))};
+  }
+
+  /**
+   * Returns the given time in a readable unit.
+   *
+   * @param nanos the time in nanoseconds
+   * @return the time in microseconds or milliseconds
+   */
+  private static String formatTime(long nanos) {
+    if (nanos < 1_000_000) {
+      return String.format("%d \u00b5s", nanos / 1000);
+    }
+    return String.format("%.1f ms", nanos / 1e6);
+  }
+}
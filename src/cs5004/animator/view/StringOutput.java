@@ -0,0 +1,47 @@
+package cs5004.animator.view;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Collects the text that is written to a writer into a string, for the views that stream their
+ * text but are also asked for all of it at once.
+ */
+final class StringOutput {
+
+  /**
+   * Represents text that can be written to a writer.
+   */
+  interface Content {
+
+    /**
+     * Writes the text to the given writer.
+     *
+     * @param out the writer
+     * @throws IOException if the writer fails
+     */
+    void writeTo(Writer out) throws IOException;
+  }
+
+  private StringOutput() {
+    // Only holds a static method
+  }
+
+  /**
+   * Returns the text written by the given content.
+   *
+   * @param content the content
+   * @return the text written
+   */
+  static String of(Content content) {
+    StringWriter out = new StringWriter();
+    try {
+      content.writeTo(out);
+    } catch (IOException e) {
+      // A StringWriter never throws
+      throw new IllegalStateException(e);
+    }
+    return out.toString();
+  }
+}
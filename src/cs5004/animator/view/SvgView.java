@@ -2,23 +2,67 @@ package cs5004.animator.view;
 
 import cs5004.animator.model.IAnimatedShape;
 import cs5004.animator.model.IAnimatorModel;
+import cs5004.animator.model.Keyframe;
 import cs5004.animator.model.Motion;
+import cs5004.animator.model.shapeutil.Color;
+import cs5004.animator.model.shapeutil.IShape;
+import cs5004.animator.monitor.ExportRecorder;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Represents a svg view for an animation. This view can show or store a svg description of the
- * animation.
+ * animation. The description is streamed to a writer shape by shape, with the numbers formatted
+ * directly into the writer.
+ *
+ * <p>By default, every motion of a shape gets its own animate tag for each attribute it changes.
+ * In compact mode, all the motions of a shape are merged into a single animate tag per attribute
+ * that lists the values of the attribute at the ticks where they change with values and keyTimes,
+ * which makes large animations much smaller and cheaper for browsers to play.</p>
+ *
+ * <p>The element of a shape only depends on the shape and the last tick of the animation, so when
+ * the animation has enough motions, the shapes are written into separate fragments in parallel on
+ * the common fork-join pool. The fragments are written to the writer in the order of the shapes,
+ * which gives the same output as writing the shapes one after the other.</p>
  */
 public class SvgView implements ITextualView {
 
+  /**
+   * The default number of motions in an animation at and above which the shapes are written in
+   * parallel.
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+  // Number of motions after which no more shapes are added to a fragment
+  private static final int FRAGMENT_MOTIONS = 1024;
+  // Number of fragments being written ahead per thread of the pool, which bounds the memory used
+  private static final int FRAGMENTS_PER_THREAD = 4;
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  // Largest number of ms formatted by hand, since larger floats may print with rounded digits
+  private static final double MAX_FAST_MS = 1e15;
+  // Largest half value formatted by hand, since Double.toString uses the scientific notation above
+  private static final long MAX_FAST_HALF = 10_000_000L;
+  // Smallest number of steps per tick that key times in compact mode can tell apart
+  private static final long KEY_TIME_STEPS_PER_TICK = 100;
+
   private int ticksPerSecond = 1;
   private String outputFileName = "default";
   private final IAnimatorModel model;
-  private final StringBuilder sb = new StringBuilder();
+  private final boolean isCompact;
+  private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+  // Scratch buffer for the digits of the integers being written
+  private final char[] digits = new char[20];
 
   /**
    * Constructs a svg view for an animation that takes in a model and an output file name.
@@ -28,6 +72,19 @@ public class SvgView implements ITextualView {
    * @param speed          the speed of the animation
    */
   public SvgView(IAnimatorModel model, String outputFileName, int speed) {
+    this(model, outputFileName, speed, false);
+  }
+
+  /**
+   * Constructs a svg view for an animation that takes in a model and an output file name, and
+   * whether the motions of each shape are merged into a single animate tag per attribute.
+   *
+   * @param model          the model to be used in the view
+   * @param outputFileName the output file name to be used in the view
+   * @param speed          the speed of the animation
+   * @param isCompact      true to write the animation in compact mode, false otherwise
+   */
+  public SvgView(IAnimatorModel model, String outputFileName, int speed, boolean isCompact) {
     if (model == null) {
       throw new IllegalArgumentException("Model cannot be null");
     }
@@ -37,53 +94,191 @@ public class SvgView implements ITextualView {
     this.model = model;
     this.outputFileName = outputFileName;
     this.ticksPerSecond = speed;
+    this.isCompact = isCompact;
   }
 
   @Override
-  public String getText() {
-    sb.append("<svg viewbox=\"").append(model.getCanvasStartingX()).append(" ")
-        .append(model.getCanvasStartingY()).append(" ").append(model.getCanvasWidth()).append(" ")
-        .append(model.getCanvasHeight()).append("\" version=\"1.1\"\n")
-        .append("     xmlns=\"http://www.w3.org/2000/svg\">").append("\n");
-    List<IAnimatedShape> shapes = model.getAnimatedShapes();
+  public void writeTo(Writer out) throws IOException {
+    ExportRecorder.write("svg", out, this::writeAnimation);
+  }
 
+  /**
+   * Writes the animation to the given writer, and returns the number of shapes written.
+   *
+   * @param out the writer
+   * @return the number of shapes written
+   * @throws IOException if the writer fails
+   */
+  private int writeAnimation(Writer out) throws IOException {
+    out.write("<svg viewbox=\"");
+    this.writeLong(out, model.getCanvasStartingX());
+    out.write(' ');
+    this.writeLong(out, model.getCanvasStartingY());
+    out.write(' ');
+    this.writeLong(out, model.getCanvasWidth());
+    out.write(' ');
+    this.writeLong(out, model.getCanvasHeight());
+    out.write("\" version=\"1.1\"\n     xmlns=\"http://www.w3.org/2000/svg\">\n");
+    int lastTick = model.getLastTick();
+    List<IAnimatedShape> shapes = model.getAnimatedShapes();
+    int motions = 0;
     for (IAnimatedShape s : shapes) {
-      sb.append("<").append(s.getShapeAsString(this)).append(" id=\"")
-          .append(s.getShapeAtStart().getId()).append("\" ").append(this.getXLabel(s)).append("=\"")
-          .append(this.getXValue(s)).append("\" ").append(this.getYLabel(s)).append("=\"")
-          .append(this.getYValue(s)).append("\" ").append(this.getWidthLabel(s)).append("=\"")
-          .append(this.getWidthValue(s)).append("\" ").append(this.getHeightLabel(s)).append("=\"")
-          .append(this.getHeightValue(s)).append("\" fill=\"")
-          .append(s.getShapeAtStart().getColor().toString()).append("\" visibility=\"");
-      boolean isHidden = false;
-      if (!s.getMotions().isEmpty() && s.getMotions().get(0).getStartTick() > 1) {
-        isHidden = true;
-        sb.append("hidden");
-      } else {
-        sb.append("visible");
+      motions += s.getMotions().size();
+    }
+    if (motions >= this.parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1) {
+      this.writeShapesInParallel(out, shapes, lastTick);
+    } else {
+      for (IAnimatedShape s : shapes) {
+        this.writeShape(out, s, lastTick);
       }
+    }
+    out.write("</svg>");
+    return shapes.size();
+  }
 
-      sb.append("\" >\n");
-      if (isHidden) {
-        String fill = s.getMotions().size() >= 1 ? "freeze" : "remove";
-        sb.append("\t<animate attributeType=\"xml\" begin=\"").append(this.getMsFromTick(1))
-            .append("ms\" dur=\"").append(getMsFromTick(s.getMotions().get(0).getStartTick() - 1))
-            .append("ms\" attributeName=\"visibility\" from=\"hidden\" ")
-            .append("to=\"visible\" fill=\"").append(fill).append("\"/>\n");
+  /**
+   * Sets the number of motions in the animation at and above which the shapes are written in
+   * parallel on the common fork-join pool. Below the threshold, the shapes are written
+   * sequentially on the calling thread.
+   *
+   * @param threshold the number of motions, or {@link Integer#MAX_VALUE} to never write the shapes
+   *                  in parallel
+   * @throws IllegalArgumentException if the threshold is negative
+   */
+  public void setParallelThreshold(int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("Threshold cannot be negative");
+    }
+    this.parallelThreshold = threshold;
+  }
+
+  /**
+   * Writes the elements of the given shapes by splitting them into fragments of consecutive shapes
+   * that are written in parallel. A bounded number of fragments is written ahead of the writer,
+   * and each fragment is written to the writer as soon as it and all the fragments before it are
+   * done.
+   *
+   * @param out      the writer
+   * @param shapes   the shapes of the animation
+   * @param lastTick the last tick of the animation
+   * @throws IOException if the writer fails
+   */
+  private void writeShapesInParallel(Writer out, List<IAnimatedShape> shapes, int lastTick)
+      throws IOException {
+    int window = FRAGMENTS_PER_THREAD * ForkJoinPool.getCommonPoolParallelism();
+    Deque<FragmentTask> pending = new ArrayDeque<>();
+    int from = 0;
+    while (from < shapes.size()) {
+      int to = from;
+      int motions = 0;
+      while (to < shapes.size() && motions < FRAGMENT_MOTIONS) {
+        motions += shapes.get(to++).getMotions().size();
+      }
+      FragmentTask task = new FragmentTask(shapes.subList(from, to), lastTick);
+      task.fork();
+      pending.add(task);
+      if (pending.size() >= window) {
+        out.write(pending.poll().join());
       }
+      from = to;
+    }
+    while (!pending.isEmpty()) {
+      out.write(pending.poll().join());
+    }
+  }
+
+  /**
+   * A fork-join task that writes the elements of consecutive shapes into a string. Each task uses
+   * its own copy of the view, since the view keeps a scratch buffer while writing numbers.
+   */
+  private final class FragmentTask extends RecursiveTask<String> {
 
-      boolean isLast = false;
+    private static final long serialVersionUID = 1L;
 
-      for (int i = 0; i < s.getMotions().size(); i++) {
-        if (i == s.getMotions().size() - 1) {
-          isLast = true;
+    private final transient List<IAnimatedShape> shapes;
+    private final int lastTick;
+
+    /**
+     * Constructs a task that writes the elements of the given shapes.
+     *
+     * @param shapes   the shapes
+     * @param lastTick the last tick of the animation
+     */
+    FragmentTask(List<IAnimatedShape> shapes, int lastTick) {
+      this.shapes = shapes;
+      this.lastTick = lastTick;
+    }
+
+    @Override
+    protected String compute() {
+      SvgView view = new SvgView(model, outputFileName, ticksPerSecond, isCompact);
+      return StringOutput.of(out -> {
+        for (IAnimatedShape s : this.shapes) {
+          view.writeShape(out, s, this.lastTick);
         }
-        appendTags(s.getMotions().get(i), s, isLast);
+      });
+    }
+  }
+
+  /**
+   * Writes the element of the given shape and its animation tags.
+   *
+   * @param out      the writer
+   * @param s        the shape
+   * @param lastTick the last tick of the animation
+   * @throws IOException if the writer fails
+   */
+  private void writeShape(Writer out, IAnimatedShape s, int lastTick) throws IOException {
+    String type = s.getShapeAsString(this);
+    boolean isOval = Objects.equals(type, this.getOvalAsString());
+    IShape start = s.getShapeAtStart();
+    List<Motion> motions = s.getMotions();
+    out.write('<');
+    out.write(type);
+    out.write(" id=\"");
+    out.write(start.getId());
+    out.write("\" ");
+    out.write(getXLabel(isOval));
+    out.write("=\"");
+    this.writePosition(out, isOval, start.getLocation().getX(), start.getWidth());
+    out.write("\" ");
+    out.write(getYLabel(isOval));
+    out.write("=\"");
+    this.writePosition(out, isOval, start.getLocation().getY(), start.getHeight());
+    out.write("\" ");
+    out.write(getWidthLabel(isOval));
+    out.write("=\"");
+    this.writeDimension(out, isOval, start.getWidth());
+    out.write("\" ");
+    out.write(getHeightLabel(isOval));
+    out.write("=\"");
+    this.writeDimension(out, isOval, start.getHeight());
+    out.write("\" fill=\"");
+    this.writeColor(out, start.getColor());
+    out.write("\" visibility=\"");
+    boolean isHidden = !motions.isEmpty() && motions.get(0).getStartTick() > 1;
+    out.write(isHidden ? "hidden" : "visible");
+    out.write("\" >\n");
+    if (isHidden) {
+      out.write("\t<animate attributeType=\"xml\" begin=\"");
+      this.writeMs(out, 1);
+      out.write("ms\" dur=\"");
+      this.writeMs(out, motions.get(0).getStartTick() - 1);
+      out.write("ms\" attributeName=\"visibility\" from=\"hidden\" ");
+      out.write("to=\"visible\" fill=\"freeze\"/>\n");
+    }
+    if (this.isCompact && !motions.isEmpty()
+        && motions.get(0).getStartTick() < motions.get(motions.size() - 1).getEndTick()) {
+      this.writeCompactTags(out, motions, s, isOval, lastTick);
+    } else {
+      for (int i = 0; i < motions.size(); i++) {
+        boolean isLast = i == motions.size() - 1;
+        this.writeTags(out, motions.get(i), s, isOval, isLast, lastTick);
       }
-      sb.append("</").append(s.getShapeAsString(this)).append(">\n");
     }
-    sb.append("</svg>");
-    return sb.toString();
+    out.write("</");
+    out.write(type);
+    out.write(">\n");
   }
 
   @Override
@@ -98,224 +293,441 @@ public class SvgView implements ITextualView {
 
   @Override
   public void write() {
-    if (outputFileName.equals("default")) {
-      System.out.print(getText());
-    } else {
-      try {
-        FileWriter fileWriter = new FileWriter(this.outputFileName);
-        fileWriter.write(getText());
-        fileWriter.close();
-      } catch (IOException e) {
-        throw new IllegalArgumentException("Could not write to file.");
+    try {
+      if (outputFileName.equals("default")) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), BUFFER_SIZE);
+        this.writeTo(out);
+        out.flush();
+      } else {
+        try (Writer out = new BufferedWriter(new FileWriter(this.outputFileName), BUFFER_SIZE)) {
+          this.writeTo(out);
+        }
       }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Could not write to file.");
     }
   }
 
   /**
    * Returns the label corresponding to the shape's x position, based on the shape's type.
    *
-   * @param s the shape
+   * @param isOval whether the shape is an oval
    * @return the label corresponding to the shape's x position
    */
-  private String getXLabel(IAnimatedShape s) {
-    return Objects.equals(s.getShapeAsString(this), this.getOvalAsString())
-        ? "cx" : "x";
+  private static String getXLabel(boolean isOval) {
+    return isOval ? "cx" : "x";
   }
 
   /**
    * Returns the label corresponding to the shape's y position, based on the shape's type.
    *
-   * @param s the shape
+   * @param isOval whether the shape is an oval
    * @return the label corresponding to the shape's y position
    */
-  private String getYLabel(IAnimatedShape s) {
-    return Objects.equals(s.getShapeAsString(this), this.getOvalAsString())
-        ? "cy" : "y";
+  private static String getYLabel(boolean isOval) {
+    return isOval ? "cy" : "y";
   }
 
   /**
-   * Returns the value corresponding to the shape's x position, based on the shape's type.
+   * Returns the label corresponding to the shape's width, based on the shape's type.
    *
-   * @param s the shape
-   * @return the label corresponding to the shape's x position
+   * @param isOval whether the shape is an oval
+   * @return the label corresponding to the shape's width
    */
-  private String getXValue(IAnimatedShape s) {
-    return Objects.equals(s.getShapeAsString(this), this.getOvalAsString())
-        ? Double.toString(s.getShapeAtStart().getLocation().getX()
-        + (double) s.getShapeAtStart().getWidth() / 2)
-        : Integer.toString(s.getShapeAtStart().getLocation().getX());
+  private static String getWidthLabel(boolean isOval) {
+    return isOval ? "rx" : "width";
   }
 
   /**
-   * Returns the value corresponding to the shape's y position, based on the shape's type.
+   * Returns the label corresponding to the shape's height, based on the shape's type.
    *
-   * @param s the shape
-   * @return the value corresponding to the shape's y position
+   * @param isOval whether the shape is an oval
+   * @return the label corresponding to the shape's height
    */
-  private String getYValue(IAnimatedShape s) {
-    return Objects.equals(s.getShapeAsString(this), this.getOvalAsString())
-        ? Double.toString(s.getShapeAtStart().getLocation().getY()
-        + (double) s.getShapeAtStart().getHeight() / 2)
-        : Integer.toString(s.getShapeAtStart().getLocation().getY());
+  private static String getHeightLabel(boolean isOval) {
+    return isOval ? "ry" : "height";
   }
 
   /**
-   * Returns the label corresponding to the shape's width, based on the shape's type.
+   * Writes the given tick in ms with one decimal, the way {@code String.format("%.1f", ms)} does
+   * for the float number of ms. Values small enough to be printed exactly are formatted by hand
+   * without allocating.
    *
-   * @param s the shape
-   * @return the label corresponding to the shape's width
+   * @param out  the writer
+   * @param tick the tick
+   * @throws IOException if the writer fails
    */
-  private String getWidthLabel(IAnimatedShape s) {
-    return Objects.equals(s.getShapeAsString(this), this.getOvalAsString())
-        ? "rx" : "width";
+  private void writeMs(Writer out, int tick) throws IOException {
+    float seconds = (float) tick / ticksPerSecond;
+    float ms = seconds * 1000;
+    double value = Math.abs((double) ms);
+    if (!(value < MAX_FAST_MS)) {
+      out.write(String.format("%.1f", ms));
+      return;
+    }
+    if (ms < 0) {
+      out.write('-');
+    }
+    // A float has few enough digits that scaling by ten is exact and only exact halves are ties
+    long tenths = Math.round(value * 10);
+    this.writeLong(out, tenths / 10);
+    out.write('.');
+    out.write((char) ('0' + tenths % 10));
   }
 
   /**
-   * Returns the label corresponding to the shape's height, based on the shape's type.
+   * Writes half of the given value, the way {@link Double#toString} prints it.
    *
-   * @param s the shape
-   * @return the label corresponding to the shape's height
+   * @param out   the writer
+   * @param twice twice the value to be written
+   * @throws IOException if the writer fails
    */
-  private String getHeightLabel(IAnimatedShape s) {
-    return Objects.equals(s.getShapeAsString(this), this.getOvalAsString())
-        ? "ry" : "height";
+  private void writeHalf(Writer out, long twice) throws IOException {
+    if (Math.abs(twice) >= 2 * MAX_FAST_HALF) {
+      // Double.toString switches to the scientific notation
+      out.write(Double.toString(twice / 2.0));
+      return;
+    }
+    if (twice < 0) {
+      out.write('-');
+    }
+    long abs = Math.abs(twice);
+    this.writeLong(out, abs / 2);
+    out.write(abs % 2 == 0 ? ".0" : ".5");
   }
 
   /**
-   * Returns the value corresponding to the shape's width, based on the shape's type.
+   * Writes the given integer in decimal.
    *
-   * @param s the shape
-   * @return the value corresponding to the shape's width
+   * @param out   the writer
+   * @param value the integer
+   * @throws IOException if the writer fails
    */
-  private String getWidthValue(IAnimatedShape s) {
-    return Objects.equals(s.getShapeAsString(this), this.getOvalAsString())
-        ? Double.toString(s.getShapeAtStart().getWidth() / 2.0) :
-        Integer.toString(s.getShapeAtStart().getWidth());
+  private void writeLong(Writer out, long value) throws IOException {
+    if (value < 0) {
+      if (value == Long.MIN_VALUE) {
+        out.write(Long.toString(value));
+        return;
+      }
+      out.write('-');
+      value = -value;
+    }
+    int position = this.digits.length;
+    do {
+      this.digits[--position] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+    while (value != 0);
+    out.write(this.digits, position, this.digits.length - position);
   }
 
   /**
-   * Returns the value corresponding to the shape's height, based on the shape's type.
+   * Writes the given color as rgb(r,g,b).
    *
-   * @param s the shape
-   * @return the value corresponding to the shape's height
+   * @param out   the writer
+   * @param color the color
+   * @throws IOException if the writer fails
    */
-  private String getHeightValue(IAnimatedShape s) {
-    return Objects.equals(s.getShapeAsString(this), this.getOvalAsString())
-        ? Double.toString(s.getShapeAtStart().getHeight() / 2.0) :
-        Integer.toString(s.getShapeAtStart().getHeight());
+  private void writeColor(Writer out, Color color) throws IOException {
+    out.write("rgb(");
+    this.writeLong(out, color.getR());
+    out.write(',');
+    this.writeLong(out, color.getG());
+    out.write(',');
+    this.writeLong(out, color.getB());
+    out.write(')');
   }
 
   /**
-   * Returns a string representation of the tick in ms.
+   * Writes the value of the shape's position, based on the shape's type. The position of an oval is
+   * its center.
    *
-   * @param tick the tick
-   * @return a string representation of the duration in ms
+   * @param out       the writer
+   * @param isOval    whether the shape is an oval
+   * @param xOrY      the x or y value
+   * @param dimension the width or height value
+   * @throws IOException if the writer fails
    */
-  private String getMsFromTick(int tick) {
-    float seconds = (float) tick / ticksPerSecond;
-    Float ms = seconds * 1000;
-    return String.format("%.1f", ms);
+  private void writePosition(Writer out, boolean isOval, int xOrY, int dimension)
+      throws IOException {
+    if (isOval) {
+      this.writeHalf(out, 2L * xOrY + dimension);
+    } else {
+      this.writeLong(out, xOrY);
+    }
   }
 
   /**
-   * Returns a string representation of the duration in ms.
+   * Writes the value of the shape's dimension, based on the shape's type. The dimension of an oval
+   * is its radius.
    *
-   * @param motion the motion
-   * @return a string representation of the duration in ms
+   * @param out       the writer
+   * @param isOval    whether the shape is an oval
+   * @param dimension the width or height value
+   * @throws IOException if the writer fails
    */
-  private String getDuration(Motion motion) {
-    int tickDuration = motion.getEndTick() - motion.getStartTick();
-    return getMsFromTick(tickDuration);
+  private void writeDimension(Writer out, boolean isOval, int dimension) throws IOException {
+    if (isOval) {
+      this.writeHalf(out, dimension);
+    } else {
+      this.writeLong(out, dimension);
+    }
   }
 
   /**
-   * Returns a string representation of the shape's location, based on the shape's type.
+   * Writes the beginning of an animate tag for the given motion and attribute, up to the from
+   * value.
    *
-   * @param s         the shape
-   * @param xOrY      the x or y value
-   * @param dimension the width or height value
-   * @return a string representation of the shape's location
+   * @param out       the writer
+   * @param a         the motion
+   * @param attribute the name of the animated attribute
+   * @throws IOException if the writer fails
    */
-  private String shapeSpecificPosition(IAnimatedShape s, int xOrY, int dimension) {
-    return Objects.equals(s.getShapeAsString(this), this.getOvalAsString())
-        ? Double.toString(xOrY + dimension / 2.0)
-        : Integer.toString(xOrY);
+  private void writeAnimateStart(Writer out, Motion a, String attribute) throws IOException {
+    out.write("\t<animate attributeType=\"xml\" begin=\"");
+    this.writeMs(out, a.getStartTick());
+    out.write("ms\" dur=\"");
+    this.writeMs(out, a.getEndTick() - a.getStartTick());
+    out.write("ms\" attributeName=\"");
+    out.write(attribute);
+    out.write("\" from=\"");
   }
 
   /**
-   * Returns a string representation of the shape's dimension, based on the shape's type.
+   * Writes the end of an animate tag, after the to value.
    *
-   * @param s         the shape
-   * @param dimension the width or height value
-   * @return a string representation of the shape's dimension
+   * @param out  the writer
+   * @param fill the fill of the animation
+   * @throws IOException if the writer fails
    */
-  private String shapeSpecificDimension(IAnimatedShape s, int dimension) {
-    return Objects.equals(s.getShapeAsString(this), this.getOvalAsString())
-        ? Double.toString(dimension / 2.0)
-        : Integer.toString(dimension);
+  private static void writeAnimateEnd(Writer out, String fill) throws IOException {
+    out.write("\" fill=\"");
+    out.write(fill);
+    out.write("\"/>\n");
   }
 
   /**
-   * Appends the proper animation tags to the text with respect to the given motion.
+   * Writes the proper animation tags with respect to the given motion.
    *
-   * @param a      the motion
-   * @param s      the animated shape
-   * @param isLast whether the motion is the last in the shape's list of motions
+   * @param out      the writer
+   * @param a        the motion
+   * @param s        the animated shape
+   * @param isOval   whether the shape is an oval
+   * @param isLast   whether the motion is the last in the shape's list of motions
+   * @param lastTick the last tick of the animation
+   * @throws IOException if the writer fails
    */
-  private void appendTags(Motion a, IAnimatedShape s, boolean isLast) {
+  private void writeTags(Writer out, Motion a, IAnimatedShape s, boolean isOval, boolean isLast,
+      int lastTick) throws IOException {
     String fill;
-    if (isLast && s.getLastTick() == model.getLastTick()) {
+    if (isLast && s.getLastTick() == lastTick) {
       fill = "remove";
     } else {
       fill = "freeze";
     }
 
     if (!a.getStartColor().equals(a.getEndColor())) {
-      sb.append("\t<animate attributeType=\"xml\" begin=\"")
-          .append(getMsFromTick(a.getStartTick())).append("ms\" dur=\"").append(getDuration(a))
-          .append("ms\" attributeName=\"fill\" from=\"").append(a.getStartColor().toString())
-          .append("\" to=\"").append(a.getEndColor().toString()).append("\" fill=\"").append(fill)
-          .append("\"/>\n");
+      this.writeAnimateStart(out, a, "fill");
+      this.writeColor(out, a.getStartColor());
+      out.write("\" to=\"");
+      this.writeColor(out, a.getEndColor());
+      writeAnimateEnd(out, fill);
     }
     if (a.getStartHeight() != a.getEndHeight()) {
-      sb.append("\t<animate attributeType=\"xml\" begin=\"")
-          .append(getMsFromTick(a.getStartTick())).append("ms\" dur=\"").append(getDuration(a))
-          .append("ms\" attributeName=\"").append(this.getHeightLabel(s)).append("\" from=\"")
-          .append(shapeSpecificDimension(s, a.getStartHeight())).append("\" to=\"")
-          .append(shapeSpecificDimension(s, a.getEndHeight())).append("\" fill=\"").append(fill)
-          .append("\"/>\n");
+      this.writeAnimateStart(out, a, getHeightLabel(isOval));
+      this.writeDimension(out, isOval, a.getStartHeight());
+      out.write("\" to=\"");
+      this.writeDimension(out, isOval, a.getEndHeight());
+      writeAnimateEnd(out, fill);
     }
     if (a.getStartWidth() != a.getEndWidth()) {
-      sb.append("\t<animate attributeType=\"xml\" begin=\"")
-          .append(getMsFromTick(a.getStartTick())).append("ms\" dur=\"").append(getDuration(a))
-          .append("ms\" attributeName=\"").append(this.getWidthLabel(s)).append("\" from=\"")
-          .append(shapeSpecificDimension(s, a.getStartWidth())).append("\" to=\"")
-          .append(shapeSpecificDimension(s, a.getEndWidth())).append("\" fill=\"").append(fill)
-          .append("\"/>\n");
+      this.writeAnimateStart(out, a, getWidthLabel(isOval));
+      this.writeDimension(out, isOval, a.getStartWidth());
+      out.write("\" to=\"");
+      this.writeDimension(out, isOval, a.getEndWidth());
+      writeAnimateEnd(out, fill);
     }
     if (a.getStartLocation().getX() != a.getEndLocation().getX()) {
-      sb.append("\t<animate attributeType=\"xml\" begin=\"")
-          .append(getMsFromTick(a.getStartTick())).append("ms\" dur=\"").append(getDuration(a))
-          .append("ms\" attributeName=\"").append(this.getXLabel(s)).append("\" from=\"")
-          .append(shapeSpecificPosition(s, a.getStartLocation().getX(), a.getStartWidth()))
-          .append("\" to=\"")
-          .append(shapeSpecificPosition(s, a.getEndLocation().getX(), a.getEndWidth()))
-          .append("\" fill=\"").append(fill).append("\"/>\n");
+      this.writeAnimateStart(out, a, getXLabel(isOval));
+      this.writePosition(out, isOval, a.getStartLocation().getX(), a.getStartWidth());
+      out.write("\" to=\"");
+      this.writePosition(out, isOval, a.getEndLocation().getX(), a.getEndWidth());
+      writeAnimateEnd(out, fill);
     }
     if (a.getStartLocation().getY() != a.getEndLocation().getY()) {
-      sb.append("\t<animate attributeType=\"xml\" begin=\"")
-          .append(getMsFromTick(a.getStartTick())).append("ms\" dur=\"").append(getDuration(a))
-          .append("ms\" attributeName=\"").append(this.getYLabel(s)).append("\" from=\"")
-          .append(shapeSpecificPosition(s, a.getStartLocation().getY(), a.getStartHeight()))
-          .append("\" to=\"")
-          .append(shapeSpecificPosition(s, a.getEndLocation().getY(), a.getEndHeight()))
-          .append("\" fill=\"").append(fill).append("\"/>\n");
-    }
-    if (isLast && s.getLastTick() < model.getLastTick()) {
-      sb.append("\t<animate attributeType=\"xml\" begin=\"")
-          .append(this.getMsFromTick(a.getEndTick()))
-          .append("ms\" dur=\"0.1ms\" attributeName=\"visibility\" from=\"visible\" ")
-          .append("to=\"hidden\" fill=\"freeze\"/>\n");
+      this.writeAnimateStart(out, a, getYLabel(isOval));
+      this.writePosition(out, isOval, a.getStartLocation().getY(), a.getStartHeight());
+      out.write("\" to=\"");
+      this.writePosition(out, isOval, a.getEndLocation().getY(), a.getEndHeight());
+      writeAnimateEnd(out, fill);
+    }
+    if (isLast && s.getLastTick() < lastTick) {
+      out.write("\t<animate attributeType=\"xml\" begin=\"");
+      this.writeMs(out, a.getEndTick());
+      out.write("ms\" dur=\"0.1ms\" attributeName=\"visibility\" from=\"visible\" ");
+      out.write("to=\"hidden\" fill=\"freeze\"/>\n");
+    }
+  }
+
+  /**
+   * Writes a single animate tag per attribute that changes during the motions of the shape. The
+   * motions are merged into the list of keyframes at their start and end ticks, and the attribute
+   * holds its value between two motions that do not follow each other. Since the motions of a
+   * shape cannot teleport, the keyframe at the end of a motion is the same as the one at the start
+   * of the next motion when they follow each other, and only one of them is kept.
+   *
+   * @param out      the writer
+   * @param motions  the motions of the shape, spanning more than one tick
+   * @param s        the animated shape
+   * @param isOval   whether the shape is an oval
+   * @param lastTick the last tick of the animation
+   * @throws IOException if the writer fails
+   */
+  private void writeCompactTags(Writer out, List<Motion> motions, IAnimatedShape s,
+      boolean isOval, int lastTick) throws IOException {
+    List<Keyframe> keyframes = new ArrayList<>();
+    for (Motion m : motions) {
+      if (keyframes.isEmpty()
+          || keyframes.get(keyframes.size() - 1).getTick() != m.getStartTick()) {
+        keyframes.add(m.getStartKeyframe());
+      }
+      keyframes.add(m.getEndKeyframe());
+    }
+    int n = keyframes.size();
+    String fill = s.getLastTick() == lastTick ? "remove" : "freeze";
+    long[] colors = new long[n];
+    long[] heights = new long[n];
+    long[] widths = new long[n];
+    long[] xs = new long[n];
+    long[] ys = new long[n];
+    for (int i = 0; i < n; i++) {
+      Keyframe k = keyframes.get(i);
+      Color c = k.getColor();
+      colors[i] = (c.getR() << 16) | (c.getG() << 8) | c.getB();
+      heights[i] = k.getHeight();
+      widths[i] = k.getWidth();
+      // The position of an oval is its center, written as a half
+      xs[i] = isOval ? 2L * k.getLocation().getX() + k.getWidth() : k.getLocation().getX();
+      ys[i] = isOval ? 2L * k.getLocation().getY() + k.getHeight() : k.getLocation().getY();
+    }
+    this.writeCompactAnimate(out, "fill", keyframes, colors, true, isOval, fill);
+    this.writeCompactAnimate(out, getHeightLabel(isOval), keyframes, heights, false, isOval,
+        fill);
+    this.writeCompactAnimate(out, getWidthLabel(isOval), keyframes, widths, false, isOval, fill);
+    this.writeCompactAnimate(out, getXLabel(isOval), keyframes, xs, false, isOval, fill);
+    this.writeCompactAnimate(out, getYLabel(isOval), keyframes, ys, false, isOval, fill);
+    int endTick = keyframes.get(n - 1).getTick();
+    if (s.getLastTick() < lastTick) {
+      out.write("\t<animate attributeType=\"xml\" begin=\"");
+      this.writeMs(out, endTick);
+      out.write("ms\" dur=\"0.1ms\" attributeName=\"visibility\" from=\"visible\" ");
+      out.write("to=\"hidden\" fill=\"freeze\"/>\n");
+    }
+  }
+
+  /**
+   * Writes the animate tag of an attribute over the given keyframes, unless the attribute never
+   * changes. Keyframes in the middle of a run of equal values are left out, since the attribute
+   * holds its value over the whole run anyway.
+   *
+   * @param out       the writer
+   * @param attribute the name of the attribute
+   * @param keyframes the keyframes of the shape
+   * @param values    the value of the attribute at each keyframe, packed as 0xRRGGBB for a color
+   *                  and doubled for a value written as a half
+   * @param isColor   whether the attribute is a color
+   * @param isOval    whether the shape is an oval, whose values are written as halves
+   * @param fill      the fill of the animation
+   * @throws IOException if the writer fails
+   */
+  private void writeCompactAnimate(Writer out, String attribute, List<Keyframe> keyframes,
+      long[] values, boolean isColor, boolean isOval, String fill) throws IOException {
+    int n = values.length;
+    boolean changes = false;
+    for (int i = 1; i < n && !changes; i++) {
+      changes = values[i] != values[0];
+    }
+    if (!changes) {
+      return;
+    }
+    int beginTick = keyframes.get(0).getTick();
+    int span = keyframes.get(n - 1).getTick() - beginTick;
+    out.write("\t<animate attributeType=\"xml\" begin=\"");
+    this.writeMs(out, beginTick);
+    out.write("ms\" dur=\"");
+    this.writeMs(out, span);
+    out.write("ms\" attributeName=\"");
+    out.write(attribute);
+    out.write("\" values=\"");
+    for (int i = 0; i < n; i++) {
+      if (isKept(values, i)) {
+        if (i > 0) {
+          out.write(';');
+        }
+        if (isColor) {
+          int rgb = (int) values[i];
+          this.writeColor(out, new Color(rgb >> 16, (rgb >> 8) & 0xFF, rgb & 0xFF));
+        } else if (isOval) {
+          this.writeHalf(out, values[i]);
+        } else {
+          this.writeLong(out, values[i]);
+        }
+      }
+    }
+    out.write("\" keyTimes=\"");
+    for (int i = 0; i < n; i++) {
+      if (isKept(values, i)) {
+        if (i > 0) {
+          out.write(';');
+        }
+        this.writeKeyTime(out, keyframes.get(i).getTick() - beginTick, span);
+      }
+    }
+    writeAnimateEnd(out, fill);
+  }
+
+  /**
+   * Returns whether the value at the given position is needed in a compact animation, which is the
+   * case unless it is in the middle of a run of equal values.
+   *
+   * @param values the values of the attribute
+   * @param i      the position of the value
+   * @return true if the value is needed, false otherwise
+   */
+  private static boolean isKept(long[] values, int i) {
+    return i == 0 || i == values.length - 1
+        || values[i - 1] != values[i] || values[i] != values[i + 1];
+  }
+
+  /**
+   * Writes the fraction of the animation at which a keyframe occurs. The fraction has enough
+   * decimals to place the keyframe within a hundredth of a tick, so long animations keep their
+   * timing.
+   *
+   * @param out     the writer
+   * @param elapsed the number of ticks from the start of the animation to the keyframe
+   * @param span    the number of ticks of the animation
+   * @throws IOException if the writer fails
+   */
+  private void writeKeyTime(Writer out, long elapsed, long span) throws IOException {
+    long scale = 10;
+    while (scale < span * KEY_TIME_STEPS_PER_TICK) {
+      scale *= 10;
+    }
+    long scaled = Math.round((double) elapsed * scale / span);
+    if (scaled <= 0) {
+      out.write('0');
+    } else if (scaled >= scale) {
+      out.write('1');
+    } else {
+      out.write("0.");
+      for (long limit = scale / 10; scaled < limit; limit /= 10) {
+        out.write('0');
+      }
+      while (scaled % 10 == 0) {
+        scaled /= 10;
+      }
+      this.writeLong(out, scaled);
     }
   }
 }
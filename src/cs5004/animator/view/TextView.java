@@ -4,21 +4,27 @@ import cs5004.animator.model.IAnimatedShape;
 import cs5004.animator.model.IAnimatorModel;
 import cs5004.animator.model.Motion;
 import cs5004.animator.model.shapeutil.IShape;
+import cs5004.animator.monitor.ExportRecorder;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.List;
-import java.util.Map;
+import java.util.PriorityQueue;
 
 /**
  * Represents a text view for an animation. This view can show or store a textual description of
- * the animation. This view will work with a variety of output sources.
+ * the animation. This view will work with a variety of output sources. The motions of all the
+ * shapes are listed in the order of their start ticks by merging the motions of each shape, which
+ * are already in that order, so the description is streamed to a writer without collecting or
+ * sorting all the motions first.
  */
 public class TextView implements ITextualView {
 
+  private static final int BUFFER_SIZE = 1 << 16;
+
   private String outputFileName = "DEFAULT";
   private final IAnimatorModel model;
 
@@ -38,99 +44,269 @@ public class TextView implements ITextualView {
   }
 
   @Override
-  public String getText() {
-    StringBuilder sb = new StringBuilder();
+  public void writeTo(Writer out) throws IOException {
+    ExportRecorder.write("text", out, this::writeAnimation);
+  }
+
+  /**
+   * Writes the animation to the given writer, and returns the number of shapes written. The state
+   * of the lines being written is local to each call, so the view can write to several writers at
+   * the same time.
+   *
+   * @param writer the writer
+   * @return the number of shapes written
+   * @throws IOException if the writer fails
+   */
+  private int writeAnimation(Writer writer) throws IOException {
+    LineWriter out = new LineWriter(writer);
     List<IAnimatedShape> shapes = model.getAnimatedShapes();
-    List<Motion> motions = new ArrayList<>();
-    Map<Motion, IAnimatedShape> motionShape = new HashMap<>();
     for (IAnimatedShape s : shapes) {
-      getShapeAsString(s.getShapeAt(s.getFirstTick()), sb);
-      motions.addAll(s.getMotions());
-      for (Motion m : s.getMotions()) {
-        motionShape.put(m, s);
-      }
+      writeShape(out, s.getShapeAt(s.getFirstTick()));
     }
-    sb.append("\n");
+    this.endLine(out);
     for (IAnimatedShape s : shapes) {
-      sb.append(getAppearsAsString(s));
+      writeAppears(out, s);
+    }
+    this.endLine(out);
+    PriorityQueue<MotionCursor> cursors = new PriorityQueue<>();
+    for (int i = 0; i < shapes.size(); i++) {
+      List<Motion> motions = shapes.get(i).getMotions();
+      if (!motions.isEmpty()) {
+        cursors.add(new MotionCursor(shapes.get(i).getId(), i, motions));
+      }
+    }
+    while (!cursors.isEmpty()) {
+      MotionCursor cursor = cursors.poll();
+      writeMotion(out, cursor.id, cursor.getMotion());
+      if (cursor.advance()) {
+        cursors.add(cursor);
+      }
+    }
+    return shapes.size();
+  }
+
+  /**
+   * Represents the position in the motions of a shape while the motions of all the shapes are
+   * merged. Cursors are ordered by the start tick of their current motion, then by the position of
+   * their shape in the animation, which lists the motions in the same order as a stable sort of all
+   * the motions by start tick.
+   */
+  private static final class MotionCursor implements Comparable<MotionCursor> {
+
+    private final String id;
+    private final int shapeIndex;
+    private final List<Motion> motions;
+    private int index = 0;
+
+    /**
+     * Constructs a cursor at the first motion of a shape.
+     *
+     * @param id         the id of the shape
+     * @param shapeIndex the position of the shape in the animation
+     * @param motions    the motions of the shape, not empty
+     */
+    MotionCursor(String id, int shapeIndex, List<Motion> motions) {
+      this.id = id;
+      this.shapeIndex = shapeIndex;
+      this.motions = motions;
+    }
+
+    /**
+     * Returns the current motion.
+     *
+     * @return the current motion
+     */
+    Motion getMotion() {
+      return this.motions.get(this.index);
+    }
+
+    /**
+     * Moves to the next motion of the shape.
+     *
+     * @return true if there is a next motion, false otherwise
+     */
+    boolean advance() {
+      return ++this.index < this.motions.size();
+    }
+
+    @Override
+    public int compareTo(MotionCursor other) {
+      int byTick = Integer.compare(this.getMotion().getStartTick(),
+          other.getMotion().getStartTick());
+      return byTick != 0 ? byTick : Integer.compare(this.shapeIndex, other.shapeIndex);
+    }
+  }
+
+  /**
+   * Represents a writer of the lines of a description, which does not end with a newline.
+   */
+  private static final class LineWriter {
+
+    private final Writer writer;
+    // Whether a line was ended but its newline is not written yet, since the last one is left out
+    private boolean hasPendingNewline = false;
+
+    /**
+     * Constructs a writer of lines to the given writer.
+     *
+     * @param writer the writer
+     */
+    LineWriter(Writer writer) {
+      this.writer = writer;
     }
-    sb.append("\n");
-    motions.sort(Comparator.comparing(Motion::getStartTick));
-    for (Motion m : motions) {
-      getMotionAsString(motionShape.get(m), m, sb);
+  }
+
+  /**
+   * Writes the given text, after the newline of the previous line if there is one.
+   *
+   * @param out  the writer
+   * @param text the text
+   * @throws IOException if the writer fails
+   */
+  private void write(LineWriter out, String text) throws IOException {
+    if (out.hasPendingNewline) {
+      out.writer.write('\n');
+      out.hasPendingNewline = false;
     }
-    sb.deleteCharAt(sb.length() - 1);
-    return sb.toString();
+    out.writer.write(text);
+  }
+
+  /**
+   * Writes the given integer, after the newline of the previous line if there is one.
+   *
+   * @param out   the writer
+   * @param value the integer
+   * @throws IOException if the writer fails
+   */
+  private void write(LineWriter out, int value) throws IOException {
+    this.write(out, Integer.toString(value));
   }
 
   /**
-   * Appends the textual representation of the shape in the animation to the string builder.
+   * Ends the current line. The newline is only written when more text follows, since the
+   * description does not end with a newline.
    *
+   * @param out the writer
+   * @throws IOException if the writer fails
+   */
+  private void endLine(LineWriter out) throws IOException {
+    if (out.hasPendingNewline) {
+      out.writer.write('\n');
+    }
+    out.hasPendingNewline = true;
+  }
+
+  /**
+   * Writes the textual representation of the shape in the animation.
+   *
+   * @param out   the writer
    * @param shape the shape to be represented
+   * @throws IOException if the writer fails
    */
-  private void getShapeAsString(IShape shape, StringBuilder sb) {
-    IShape s = shape.copy();
-    if (s.isInvisible()) {
+  private void writeShape(LineWriter out, IShape shape) throws IOException {
+    if (shape.isInvisible()) {
       return;
     }
-    sb.append(String.format("Create %s %s %s with ", s.getColor().toString(),
-        s.getShapeAsString(), s.getId()));
-    if (s.isRectangle()) {
-      sb.append(String.format("corner at %s, width: %d and height %d\n", s.getLocation().toString(),
-          s.getWidth(), s.getHeight()));
-    } else if (s.isOval()) {
-      sb.append(String.format("center at %s, radius %d and %d\n", s.getLocation().toString(),
-          s.getWidth(), s.getHeight()));
+    this.write(out, "Create ");
+    this.write(out, shape.getColor().toString());
+    this.write(out, " ");
+    this.write(out, shape.getShapeAsString());
+    this.write(out, " ");
+    this.write(out, shape.getId());
+    this.write(out, " with ");
+    if (shape.isRectangle()) {
+      this.write(out, "corner at ");
+      this.write(out, shape.getLocation().toString());
+      this.write(out, ", width: ");
+      this.write(out, shape.getWidth());
+      this.write(out, " and height ");
+      this.write(out, shape.getHeight());
+      this.endLine(out);
+    } else if (shape.isOval()) {
+      this.write(out, "center at ");
+      this.write(out, shape.getLocation().toString());
+      this.write(out, ", radius ");
+      this.write(out, shape.getWidth());
+      this.write(out, " and ");
+      this.write(out, shape.getHeight());
+      this.endLine(out);
     }
   }
 
   /**
-   * Return the textual representation of the shape's first and last appearance in the animation.
+   * Writes the textual representation of the shape's first and last appearance in the animation.
    *
+   * @param out           the writer
    * @param animatedShape the shape to be represented
-   * @return the textual representation for the shape's first and last appearance in the animation
+   * @throws IOException if the writer fails
    */
-  private String getAppearsAsString(IAnimatedShape animatedShape) {
-    return String.format("%s appears at time t=%s and disappears at time t=%d\n",
-        animatedShape.getId(),
-        animatedShape.getFirstTick(), animatedShape.getLastTick());
+  private void writeAppears(LineWriter out, IAnimatedShape animatedShape) throws IOException {
+    this.write(out, animatedShape.getId());
+    this.write(out, " appears at time t=");
+    this.write(out, animatedShape.getFirstTick());
+    this.write(out, " and disappears at time t=");
+    this.write(out, animatedShape.getLastTick());
+    this.endLine(out);
   }
 
   /**
-   * Add the textual representation of the motions in the animation to the string builder.
+   * Writes the textual representation of a motion of a shape, one line per changed attribute.
    *
-   * @param animatedShape the shape to be represented
-   * @param motion       the motion to be represented
-   * @param sb          the string builder to be used
+   * @param out    the writer
+   * @param id     the id of the shape
+   * @param motion the motion to be represented
+   * @throws IOException if the writer fails
    */
-  private void getMotionAsString(IAnimatedShape animatedShape, Motion motion, StringBuilder sb) {
-    String id = animatedShape.getId();
-    if (!motion.getStartLocation().toString().equals(motion.getEndLocation().toString())) {
-      String str = String.format("%s moves from %s to %s from time t=%d to t=%d\n", id,
-          motion.getStartLocation().toString(),
-          motion.getEndLocation().toString(), motion.getStartTick(), motion.getEndTick());
-      sb.append(str);
-    }
-    if (!motion.getStartColor().toString().equals(motion.getEndColor().toString())) {
-      String str = String.format("%s changes from %s to %s from time t=%d to t=%d\n", id,
-          motion.getStartColor().toString(),
-          motion.getEndColor().toString(), motion.getStartTick(), motion.getEndTick());
-      sb.append(str);
+  private void writeMotion(LineWriter out, String id, Motion motion) throws IOException {
+    if (!motion.getStartLocation().equals(motion.getEndLocation())) {
+      this.write(out, id);
+      this.write(out, " moves from ");
+      this.write(out, motion.getStartLocation().toString());
+      this.write(out, " to ");
+      this.write(out, motion.getEndLocation().toString());
+      this.writeTicks(out, motion);
+    }
+    if (!motion.getStartColor().equals(motion.getEndColor())) {
+      this.write(out, id);
+      this.write(out, " changes from ");
+      this.write(out, motion.getStartColor().toString());
+      this.write(out, " to ");
+      this.write(out, motion.getEndColor().toString());
+      this.writeTicks(out, motion);
     }
     if (motion.getStartWidth() != motion.getEndWidth()) {
-      String str = String.format("%s changes width from %d to %d from time t=%d to t=%d\n", id,
-          motion.getStartWidth(), motion.getEndWidth(), motion.getStartTick(),
-          motion.getEndTick());
-      sb.append(str);
+      this.write(out, id);
+      this.write(out, " changes width from ");
+      this.write(out, motion.getStartWidth());
+      this.write(out, " to ");
+      this.write(out, motion.getEndWidth());
+      this.writeTicks(out, motion);
     }
     if (motion.getStartHeight() != motion.getEndHeight()) {
-      String str = String.format("%s changes height from %d to %d from time t=%d to t=%d\n", id,
-          motion.getStartHeight(), motion.getEndHeight(), motion.getStartTick(),
-          motion.getEndTick());
-      sb.append(str);
+      this.write(out, id);
+      this.write(out, " changes height from ");
+      this.write(out, motion.getStartHeight());
+      this.write(out, " to ");
+      this.write(out, motion.getEndHeight());
+      this.writeTicks(out, motion);
     }
   }
 
+  /**
+   * Writes the ticks of a motion at the end of a line and ends the line.
+   *
+   * @param out    the writer
+   * @param motion the motion
+   * @throws IOException if the writer fails
+   */
+  private void writeTicks(LineWriter out, Motion motion) throws IOException {
+    this.write(out, " from time t=");
+    this.write(out, motion.getStartTick());
+    this.write(out, " to t=");
+    this.write(out, motion.getEndTick());
+    this.endLine(out);
+  }
+
   @Override
   public String getOvalAsString() {
     return "oval";
@@ -143,16 +319,18 @@ public class TextView implements ITextualView {
 
   @Override
   public void write() {
-    if (outputFileName.equals("default")) {
-      System.out.print(getText());
-    } else {
-      try {
-        FileWriter fileWriter = new FileWriter(this.outputFileName);
-        fileWriter.write(getText());
-        fileWriter.close();
-      } catch (IOException e) {
-        throw new IllegalArgumentException("Failure to write to file");
+    try {
+      if (outputFileName.equals("default")) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), BUFFER_SIZE);
+        this.writeTo(out);
+        out.flush();
+      } else {
+        try (Writer out = new BufferedWriter(new FileWriter(this.outputFileName), BUFFER_SIZE)) {
+          this.writeTo(out);
+        }
       }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failure to write to file");
     }
   }
 }
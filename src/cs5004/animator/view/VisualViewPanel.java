@@ -1,24 +1,42 @@
 package cs5004.animator.view;
 
+import cs5004.animator.model.Frame;
 import cs5004.animator.model.IAnimatorModel;
-import cs5004.animator.model.shapeutil.IShape;
+import cs5004.animator.monitor.PaintEvent;
+import cs5004.animator.monitor.PerformanceMonitor;
 
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
-import java.awt.Shape;
-import java.awt.geom.Ellipse2D;
-import java.util.List;
 import javax.swing.JPanel;
 
 /**
  * Represents the JPanel that will be used to display the animation. This class extends JPanel and
- * overrides the paintComponent method to draw the animation.
+ * overrides the paintComponent method to draw the animation. The shapes are read from the latest
+ * frame published by the model, so painting neither copies the shapes of the model nor sees them
+ * while a tick is being applied. Only the shapes intersecting the area being painted are drawn,
+ * which are found with a {@link FrameGrid}. The grid is built over all the shapes of a frame the
+ * first time it is painted, in O(n), and then reused, so scrolling a large canvas or repainting
+ * part of it takes time in proportion to the shapes shown. The time taken to paint every frame is
+ * recorded in the {@link PerformanceMonitor}, and an overlay showing the performance of the
+ * animation can be drawn over it.
  */
 public class VisualViewPanel extends JPanel {
 
+  // Number of colors kept by the color cache, must be a power of two
+  private static final int COLOR_CACHE_SIZE = 256;
+
   private final IAnimatorModel model;
+  private final Color[] colorCache = new Color[COLOR_CACHE_SIZE];
+  // Number of colors missing from the cache in the frame being painted
+  private int colorMisses = 0;
+  private final PerformanceMonitor monitor = PerformanceMonitor.getInstance();
+  // The performance overlay, or null if it is hidden
+  private PerformanceOverlay overlay = null;
+  // The grid over the shapes of the last frame painted, and the sequence number of that frame
+  private final FrameGrid grid = new FrameGrid();
+  private long gridSequence = -1;
 
   /**
    * Constructs the panel from the model.
@@ -31,25 +49,103 @@ public class VisualViewPanel extends JPanel {
     this.setBackground(Color.WHITE);
   }
 
+  /**
+   * Shows or hides the overlay showing the performance of the animation.
+   *
+   * @param isVisible true to show the overlay, false to hide it
+   */
+  public void setOverlayVisible(boolean isVisible) {
+    if (isVisible == this.isOverlayVisible()) {
+      return;
+    }
+    this.overlay = isVisible ? new PerformanceOverlay(this.monitor) : null;
+    this.repaint();
+  }
+
+  /**
+   * Returns whether the overlay showing the performance of the animation is shown.
+   *
+   * @return true if the overlay is shown, false otherwise
+   */
+  public boolean isOverlayVisible() {
+    return this.overlay != null;
+  }
+
   @Override
   protected void paintComponent(Graphics g) {
+    long start = System.nanoTime();
+    PaintEvent event = new PaintEvent();
+    event.begin();
     super.paintComponent(g);
     Graphics2D g2d = (Graphics2D) g;
 
     g2d.setColor(Color.BLACK);
-    List<IShape> shapes = this.model.getShapes();
-    for (IShape s : shapes) {
-      if (s.isInvisible()) {
+    Frame frame = this.model.getPublishedFrame();
+    int offsetX = model.getCanvasStartingX();
+    int offsetY = model.getCanvasStartingY();
+    int painted = 0;
+    this.colorMisses = 0;
+    Rectangle clip = g2d.getClipBounds();
+    if (clip == null) {
+      clip = new Rectangle(0, 0, this.getWidth(), this.getHeight());
+    }
+    if (frame.getSequence() != this.gridSequence || frame.getSequence() == 0) {
+      this.grid.build(frame);
+      this.gridSequence = frame.getSequence();
+    }
+    // The clip in the coordinates of the frame
+    int clipX = clip.x + offsetX;
+    int clipY = clip.y + offsetY;
+    long clipRight = (long) clipX + clip.width;
+    long clipBottom = (long) clipY + clip.height;
+    int[] shapes = this.grid.query(clipX, clipY, clip.width, clip.height);
+    for (int k = 0; k < this.grid.getResultCount(); k++) {
+      int i = shapes[k];
+      int x = frame.getX(i);
+      int y = frame.getY(i);
+      int width = frame.getWidth(i);
+      int height = frame.getHeight(i);
+      if (x >= clipRight || y >= clipBottom || (long) x + width <= clipX
+          || (long) y + height <= clipY) {
         continue;
       }
-      Shape shape = s.isOval() ? new Ellipse2D.Double(s.getLocation().getX()
-          - model.getCanvasStartingX(), s.getLocation().getY() - model.getCanvasStartingY(),
-          s.getWidth(), s.getHeight())
-          : new Rectangle.Double(s.getLocation().getX() - model.getCanvasStartingX(),
-              s.getLocation().getY() - model.getCanvasStartingY(),
-              s.getWidth(), s.getHeight());
-      g2d.setColor(new Color(s.getColor().getR(), s.getColor().getG(), s.getColor().getB()));
-      g2d.fill(shape);
+      painted++;
+      g2d.setColor(this.getColor(frame.getRgb(i)));
+      if (frame.getType(i) == Frame.OVAL) {
+        g2d.fillOval(x - offsetX, y - offsetY, width, height);
+      } else {
+        g2d.fillRect(x - offsetX, y - offsetY, width, height);
+      }
+    }
+    event.end();
+    this.monitor.recordPaint(System.nanoTime() - start, painted);
+    this.monitor.recordColorLookups(painted, this.colorMisses);
+    if (event.shouldCommit()) {
+      event.tick = frame.getTick();
+      event.shapes = frame.getSize();
+      event.paintedShapes = painted;
+      event.commit();
+    }
+    if (this.overlay != null) {
+      this.overlay.paint(g2d, this.getVisibleRect());
+    }
+  }
+
+  /**
+   * Returns the AWT color for the given packed color. Colors are kept in a small cache indexed by
+   * their value, so the colors of an animation are only created once.
+   *
+   * @param rgb the color packed as 0xRRGGBB
+   * @return the AWT color
+   */
+  private Color getColor(int rgb) {
+    int slot = (rgb ^ (rgb >>> 8) ^ (rgb >>> 16)) & (COLOR_CACHE_SIZE - 1);
+    Color c = this.colorCache[slot];
+    if (c == null || (c.getRGB() & 0xFFFFFF) != rgb) {
+      c = new Color(rgb);
+      this.colorCache[slot] = c;
+      this.colorMisses++;
     }
+    return c;
   }
 }
@@ -0,0 +1,196 @@
+package cs5004.animator.controller;
+
+
+import static org.junit.Assert.assertEquals;
+
+import cs5004.animator.model.AnimatorModel;
+import cs5004.animator.model.IAnimatorModel;
+import cs5004.animator.model.Motion;
+import cs5004.animator.model.shapeutil.Color;
+import cs5004.animator.model.shapeutil.Location;
+import cs5004.animator.model.shapeutil.Rectangle;
+import cs5004.animator.view.IInteractiveView;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the AnimatorController class that needs no display. The controller is
+ * played with a view that shows nothing, a clock driven by a fake source of time, and a timer that
+ * only runs its task when the test asks it to. Messages are recorded instead of shown.
+ */
+public class AnimatorControllerHeadlessTest {
+
+  // Period of the timer of the controller in nanoseconds
+  private static final long FRAME_NANOS = 16_000_000L;
+
+  private long now;
+  private ManualTimer timer;
+  private IAnimatorModel model;
+  private FakeView view;
+  private AnimatorController controller;
+
+  /**
+   * Sets up a long animation of one shape, played by a controller in an interactive mode.
+   */
+  @Before
+  public void setup() {
+    this.now = 0;
+    this.timer = new ManualTimer();
+    this.model = new AnimatorModel();
+    this.model.addShape(new Rectangle("R"));
+    this.model.addMotion("R", new Motion(new Location(0, 0), new Location(100, 100), 10, 10, 10,
+        10, new Color(0, 0, 0), new Color(0, 0, 0), 1, 100000));
+    this.view = new FakeView(this.model);
+    this.controller = new AnimatorController(this.model, this.view, 120, true,
+        new PlaybackClock(() -> this.now), () -> this.timer);
+  }
+
+  /**
+   * Tests that a view reporting the tick it shows back to the controller, as the progress bar
+   * does, neither restarts the clock nor applies the tick again.
+   */
+  @Test
+  public void testEchoedTick() {
+    this.controller.start();
+    this.controller.actionPerformed(new ActionEvent(this, 0, "Play"));
+    for (int i = 0; i < 120; i++) {
+      this.now += FRAME_NANOS;
+      this.timer.task.run();
+    }
+    // 1.92 seconds at 120 ticks per second, while restarting the clock at every frame would lose
+    // the progress towards the next tick and only advance one tick per frame
+    assertEquals(1 + 230, this.model.getTick());
+    assertEquals(120, this.view.echoes);
+    // The first tick when the animation starts, then one tick per frame
+    assertEquals(1 + 120, this.model.getStatistics().getTicksApplied());
+  }
+
+  /**
+   * Tests that loading a file that declares the same name twice, which the model of the
+   * controller cannot hold, reports the error and keeps the animation that was playing.
+   */
+  @Test
+  public void testLoadDuplicateName() throws Exception {
+    BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+    AnimatorController loading = new AnimatorController(this.model, this.view, 120, true,
+        new PlaybackClock(() -> this.now), () -> this.timer) {
+      @Override
+      public void displayError(String errorMessage) {
+        messages.add(errorMessage);
+      }
+
+      @Override
+      public void displaySuccess(String message) {
+        messages.add(message);
+      }
+    };
+    File file = File.createTempFile("animation", ".txt");
+    try {
+      try (Writer out = new FileWriter(file)) {
+        out.write("canvas 0 0 100 100\n"
+            + "shape R rectangle\n"
+            + "shape R ellipse\n"
+            + "motion R 1 0 0 5 5 0 0 0 10 10 10 5 5 0 0 0\n");
+      }
+      this.view.loadFilePath = file.getPath();
+      loading.actionPerformed(new ActionEvent(this, 0, "Load"));
+      assertEquals("Fail to load this file. Please provide a valid file type.",
+          messages.poll(10, TimeUnit.SECONDS));
+    } finally {
+      file.delete();
+    }
+    assertEquals(1, this.model.getAnimatedShapes().size());
+    assertEquals(100000, this.model.getLastTick());
+  }
+
+  /**
+   * A timer that keeps the task it is given instead of running it.
+   */
+  private static final class ManualTimer extends Timer {
+
+    private TimerTask task;
+
+    /**
+     * Constructs a timer whose thread does not keep the virtual machine running.
+     */
+    ManualTimer() {
+      super(true);
+    }
+
+    @Override
+    public void schedule(TimerTask task, long delay, long period) {
+      this.task = task;
+    }
+  }
+
+  /**
+   * An interactive view that shows nothing, reports the tick of the model back to its listener
+   * whenever it is refreshed, and asks to load the file it is given.
+   */
+  private static final class FakeView implements IInteractiveView {
+
+    private final IAnimatorModel model;
+    private IAnimatorController listener;
+    private int echoes = 0;
+    private String loadFilePath = "";
+
+    /**
+     * Constructs a view of the given model.
+     *
+     * @param model the model
+     */
+    FakeView(IAnimatorModel model) {
+      this.model = model;
+    }
+
+    @Override
+    public void setListener(IAnimatorController listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public String getLoadFilePath() {
+      return this.loadFilePath;
+    }
+
+    @Override
+    public String getSaveFilePath() {
+      return "";
+    }
+
+    @Override
+    public void refreshAnimation() {
+      this.echoes++;
+      this.listener.setTick(this.model.getTick());
+    }
+
+    @Override
+    public void showTaskProgress(String description, int percent) {
+      // Nothing is shown
+    }
+
+    @Override
+    public void hideTaskProgress() {
+      // Nothing is shown
+    }
+
+    @Override
+    public void display() {
+      // Nothing is shown
+    }
+
+    @Override
+    public void refresh() {
+      // Nothing is shown
+    }
+  }
+}
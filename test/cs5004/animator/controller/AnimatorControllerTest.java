@@ -74,4 +74,4 @@ public class AnimatorControllerTest {
     controller.setSpeed("10");
     assertEquals(10, controller.getSpeed());
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package cs5004.animator.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import cs5004.animator.model.AnimatorModel;
+import cs5004.animator.model.IAnimatorModel;
+import cs5004.animator.monitor.PerformanceMonitor;
+import cs5004.animator.util.AnimationReader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the AnimatorMetrics class.
+ */
+public class AnimatorMetricsTest {
+
+  private static final String ANIMATION = "canvas 0 0 100 100\n"
+      + "shape R rectangle\n"
+      + "shape C ellipse\n"
+      + "motion R 1 0 0 5 5 0 0 0 10 10 10 5 5 0 0 0\n"
+      + "motion C 5 0 0 5 5 0 0 0 10 10 10 5 5 0 0 0\n";
+
+  /**
+   * Tests that the metrics are registered with the platform MBean server and read from the model
+   * and the monitor.
+   *
+   * @throws Exception if the metrics cannot be registered or read
+   */
+  @Test
+  public void testRegister() throws Exception {
+    IAnimatorModel model = AnimationReader.parseFile(new StringReader(ANIMATION),
+        new AnimatorModel.Builder());
+    PerformanceMonitor monitor = PerformanceMonitor.getInstance();
+    AnimatorMetrics metrics = new AnimatorMetrics(model, monitor);
+    metrics.register();
+    // Registering again replaces the metrics
+    new AnimatorMetrics(model, monitor).register();
+    metrics.register();
+
+    model.applyTick(6);
+    model.applyTick(7);
+    monitor.recordTick(3_000_000);
+    monitor.setRequestedSpeed(25);
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(AnimatorMetrics.NAME);
+    assertEquals(7, server.getAttribute(name, "CurrentTick"));
+    assertEquals(25, server.getAttribute(name, "RequestedSpeed"));
+    assertEquals(2, server.getAttribute(name, "ShapeCount"));
+    assertEquals(2, server.getAttribute(name, "MotionCount"));
+    assertEquals(false, server.getAttribute(name, "Loading"));
+    assertEquals(0.5, server.getAttribute(name, "TimelineHitRatio"));
+    assertTrue((Double) server.getAttribute(name, "MaxTickTime") >= 3);
+    assertTrue((Long) server.getAttribute(name, "EstimatedModelBytes") > 0);
+
+    server.invoke(name, "resetMaximums", new Object[0], new String[0]);
+    assertEquals(0.0, server.getAttribute(name, "MaxTickTime"));
+    assertEquals(0.0, metrics.getMaxFrameTime(), 0);
+    server.unregisterMBean(name);
+  }
+
+  /**
+   * Tests that null arguments are rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullModel() {
+    new AnimatorMetrics(null, PerformanceMonitor.getInstance());
+  }
+}
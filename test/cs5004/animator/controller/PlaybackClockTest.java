@@ -0,0 +1,72 @@
+package cs5004.animator.controller;
+
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the PlaybackClock class.
+ */
+public class PlaybackClockTest {
+
+  private long now;
+  private PlaybackClock clock;
+
+  /**
+   * Sets up a clock driven by a fake source of time.
+   */
+  @Before
+  public void setup() {
+    this.now = 0;
+    this.clock = new PlaybackClock(() -> this.now);
+  }
+
+  /**
+   * Tests that the tick follows the elapsed time without drifting.
+   */
+  @Test
+  public void testGetTick() {
+    this.clock.start(1, 3);
+    assertEquals(1, this.clock.getTick());
+    this.now = 333_333_333L;
+    assertEquals(1, this.clock.getTick());
+    this.now = 333_333_334L;
+    assertEquals(2, this.clock.getTick());
+    this.now = 1_000_000_000L;
+    assertEquals(4, this.clock.getTick());
+    this.now = 3_600_000_000_000L;
+    assertEquals(10801, this.clock.getTick());
+  }
+
+  /**
+   * Tests that several ticks are skipped at high speeds and that negative speeds play backward.
+   */
+  @Test
+  public void testSpeeds() {
+    this.clock.start(1, 5000);
+    this.now = 16_000_000L;
+    assertEquals(81, this.clock.getTick());
+    this.clock.start(100, -10);
+    this.now += 250_000_000L;
+    assertEquals(98, this.clock.getTick());
+    this.clock.start(7, 0);
+    this.now += 1_000_000_000L;
+    assertEquals(7, this.clock.getTick());
+  }
+
+  /**
+   * Tests that starting the clock again counts from the given tick.
+   */
+  @Test
+  public void testStart() {
+    this.clock.start(1, 10);
+    this.now = 550_000_000L;
+    assertEquals(6, this.clock.getTick());
+    this.clock.start(20, 10);
+    assertEquals(20, this.clock.getTick());
+    this.now += 100_000_000L;
+    assertEquals(21, this.clock.getTick());
+  }
+}
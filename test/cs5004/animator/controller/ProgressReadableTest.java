@@ -0,0 +1,83 @@
+package cs5004.animator.controller;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the ProgressReadable and CancellableWriter classes.
+ */
+public class ProgressReadableTest {
+
+  /**
+   * Tests that the percentage read is reported after every read.
+   */
+  @Test
+  public void testProgress() throws IOException {
+    List<Integer> percents = new ArrayList<>();
+    ProgressReadable in = new ProgressReadable(new StringReader("0123456789"), 10,
+        percents::add);
+    CharBuffer buffer = CharBuffer.allocate(4);
+    while (in.read(buffer) >= 0) {
+      buffer.clear();
+    }
+    assertEquals(Arrays.asList(40, 80, 100, 100), percents);
+
+    percents.clear();
+    in = new ProgressReadable(new StringReader("0123456789"), 0, percents::add);
+    in.read(CharBuffer.allocate(20));
+    assertEquals(Arrays.asList(0), percents);
+  }
+
+  /**
+   * Tests that the listener can stop the reading.
+   */
+  @Test
+  public void testCancelRead() throws IOException {
+    ProgressReadable in = new ProgressReadable(new StringReader("0123456789"), 10, (percent) -> {
+      if (percent >= 50) {
+        throw new CancellationException();
+      }
+    });
+    in.read(CharBuffer.allocate(4));
+    try {
+      in.read(CharBuffer.allocate(4));
+      fail("Reading should be stopped");
+    } catch (CancellationException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Tests that the check can stop the writing.
+   */
+  @Test
+  public void testCancelWrite() throws IOException {
+    StringWriter out = new StringWriter();
+    boolean[] isCancelled = {false};
+    CancellableWriter writer = new CancellableWriter(out, () -> {
+      if (isCancelled[0]) {
+        throw new CancellationException();
+      }
+    });
+    writer.write("abc");
+    writer.write('d');
+    isCancelled[0] = true;
+    try {
+      writer.write("efg");
+      fail("Writing should be stopped");
+    } catch (CancellationException e) {
+      assertEquals("abcd", out.toString());
+    }
+  }
+}
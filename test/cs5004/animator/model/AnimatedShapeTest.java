@@ -1,8 +1,11 @@
 package cs5004.animator.model;
 
 import static junit.framework.Assert.fail;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import cs5004.animator.model.shapeutil.Color;
+import cs5004.animator.model.shapeutil.IShape;
 import cs5004.animator.model.shapeutil.Location;
 import cs5004.animator.model.shapeutil.Oval;
 import cs5004.animator.model.shapeutil.Rectangle;
@@ -165,4 +168,82 @@ public class AnimatedShapeTest {
         11, 13));
   }
 
-}
\ No newline at end of file
+  /**
+   * Tests for the getShapeAt method when seeking forward and backward through the motions.
+   */
+  @Test
+  public void testGetShapeAt() {
+    IShape s3 = new Rectangle("rectangle1", 3, 15, new Color(28, 28, 28), new Location(10, 20));
+    IShape s5 = new Rectangle("rectangle1", 5, 20, new Color(30, 30, 30), new Location(10, 20));
+    IShape s8 = new Rectangle("rectangle1", 10, 40, new Color(25, 25, 25), new Location(20, 40));
+    assertEquals(s8, rectangle2.getShapeAt(8));
+    assertEquals(s3, rectangle2.getShapeAt(3));
+    assertTrue(rectangle2.getShapeAt(12).isInvisible());
+    assertEquals(s5, rectangle2.getShapeAt(5));
+    assertEquals(s3, rectangle2.getShapeAt(3));
+    assertTrue(rectangle2.getShapeAt(0).isInvisible());
+    for (int tick = 6; tick <= 11; tick++) {
+      assertEquals(s8, rectangle2.getShapeAt(tick));
+    }
+    assertTrue(rectangle1.getShapeAt(1).isInvisible());
+  }
+
+  /**
+   * Tests that applying ticks while filling a frame writes the same state as the shape at each
+   * tick, and that the shape is brought up to date when it is read or copied.
+   */
+  @Test
+  public void testApplyTickToFrame() {
+    Frame frame = new Frame();
+    Frame expected = new Frame();
+    for (int tick = 0; tick <= 12; tick++) {
+      frame.reset(tick, 1);
+      expected.reset(tick, 1);
+      rectangle2.applyTick(tick, frame, 0);
+      rectangle2.writeFrame(expected, 0, tick);
+      assertEquals(expected.isVisible(0), frame.isVisible(0));
+      assertEquals(expected.getX(0), frame.getX(0));
+      assertEquals(expected.getY(0), frame.getY(0));
+      assertEquals(expected.getWidth(0), frame.getWidth(0));
+      assertEquals(expected.getHeight(0), frame.getHeight(0));
+      assertEquals(expected.getRgb(0), frame.getRgb(0));
+      assertEquals(expected.getType(0), frame.getType(0));
+    }
+    rectangle2.applyTick(3, frame, 0);
+    assertEquals(rectangle2.getShapeAt(3), rectangle2.getShape());
+    rectangle2.applyTick(8, frame, 0);
+    assertEquals(rectangle2.getShapeAt(8), rectangle2.copy().getShape());
+    rectangle2.applyTick(12, frame, 0);
+    assertTrue(rectangle2.getShape().isInvisible());
+    rectangle2.applyTick(5, frame, 0);
+    rectangle2.applyTick(3);
+    assertEquals(rectangle2.getShapeAt(3), rectangle2.getShape());
+  }
+
+  /**
+   * Tests that a copy shares the animation of the original until one of them adds a motion.
+   */
+  @Test
+  public void testCopy() {
+    IAnimatedShape copy = rectangle2.copy();
+    assertEquals(rectangle2.getMotions().size(), copy.getMotions().size());
+    assertEquals(rectangle2.getShapeAt(3), copy.getShapeAt(3));
+    copy.addMotion(new Motion(new Location(20, 40), new Location(22, 42),
+        10, 12, 40, 42,
+        new Color(25, 25, 25), new Color(27, 27, 27),
+        11, 13));
+    assertEquals(3, rectangle2.getMotions().size());
+    assertEquals(4, rectangle2.getKeyframes().size());
+    assertEquals(4, copy.getMotions().size());
+    assertEquals(5, copy.getKeyframes().size());
+    assertTrue(rectangle2.getShapeAt(12).isInvisible());
+    assertEquals(11, copy.getShapeAt(12).getWidth());
+    try {
+      copy.getMotions().clear();
+      fail("The motions should not be modifiable.");
+    } catch (UnsupportedOperationException e) {
+      // Do nothing
+    }
+  }
+
+}
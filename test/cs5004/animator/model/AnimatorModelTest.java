@@ -11,9 +11,11 @@ import cs5004.animator.model.shapeutil.IShape;
 import cs5004.animator.model.shapeutil.Location;
 import cs5004.animator.model.shapeutil.Oval;
 import cs5004.animator.model.shapeutil.Rectangle;
+import cs5004.animator.view.ITextualView;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -197,4 +199,533 @@ public class AnimatorModelTest {
     }
   }
 
-}
\ No newline at end of file
+  /**
+   * Tests that shapes can be looked up by id and that ids stay unique.
+   */
+  @Test
+  public void testShapeIds() {
+    assertEquals(rect1, this.model.getShape(rect1id));
+    try {
+      this.model.addShape(new Rectangle(oval1id));
+      fail("Duplicate id should be rejected.");
+    } catch (IllegalArgumentException e) {
+      // Do nothing
+    }
+    try {
+      this.model.getShape("missing");
+      fail("Missing id should be rejected.");
+    } catch (IllegalArgumentException e) {
+      // Do nothing
+    }
+    this.model.clear();
+    this.model.addShape(new Rectangle(oval1id));
+    assertEquals(1, this.model.getShapes().size());
+    assertTrue(this.model.getShape(oval1id).isRectangle());
+  }
+
+  /**
+   * Tests that the builder keeps the declaration order of the shapes, and that a name declared
+   * twice gives two shapes that both receive the motions of that name.
+   */
+  @Test
+  public void testBuilderShapeIds() {
+    AnimatorModel.Builder builder = new AnimatorModel.Builder();
+    builder.declareShape("b", "rectangle");
+    builder.declareShape("a", "ellipse");
+    builder.addMotion("a", 1, 0, 0, 10, 10, 0, 0, 0, 5, 5, 5, 10, 10, 0, 0, 0);
+    builder.declareShape("a", "rectangle");
+    builder.addMotion("a", 5, 5, 5, 10, 10, 0, 0, 0, 9, 5, 5, 10, 10, 0, 0, 0);
+    IAnimatorModel built = builder.build();
+    assertEquals(3, built.getAnimatedShapes().size());
+    assertEquals("b", built.getAnimatedShapes().get(0).getId());
+    assertEquals("a", built.getAnimatedShapes().get(1).getId());
+    assertEquals(2, built.getAnimatedShapes().get(1).getMotions().size());
+    assertEquals("a", built.getAnimatedShapes().get(2).getId());
+    assertEquals(1, built.getAnimatedShapes().get(2).getMotions().size());
+    assertTrue(built.getShape("a").isOval());
+
+    built.addMotion("a", new Motion(new Location(5, 5), new Location(5, 5), 10, 10, 10, 10,
+        new Color(0, 0, 0), new Color(0, 0, 0), 9, 12));
+    assertEquals(3, built.getAnimatedShapes().get(1).getMotions().size());
+    assertEquals(2, built.getAnimatedShapes().get(2).getMotions().size());
+    assertEquals(12, built.getLastTick());
+  }
+
+  /**
+   * Tests that applying ticks out of order shows exactly the shapes alive at each tick.
+   */
+  @Test
+  public void testApplyTickOutOfOrder() {
+    this.model.applyTick(8);
+    assertTrue(this.model.getShape(oval1id).isInvisible());
+    assertEquals(this.model.getShapeAt(rect1id, 8), this.model.getShape(rect1id));
+    this.model.applyTick(3);
+    assertEquals(this.model.getShapeAt(oval1id, 3), this.model.getShape(oval1id));
+    assertEquals(this.model.getShapeAt(rect1id, 3), this.model.getShape(rect1id));
+    this.model.applyTick(12);
+    assertTrue(this.model.getShape(oval1id).isInvisible());
+    assertTrue(this.model.getShape(rect1id).isInvisible());
+    this.model.applyTick(6);
+    assertEquals(new Oval(oval1id, o1w3, o1h3, o1c3, o1p3), this.model.getShape(oval1id));
+    this.model.addShape(new Rectangle("rect2"));
+    this.model.addMotion("rect2", new Motion(r1p2, r1p3, r1w2, r1w3, r1h2, r1h3,
+        r1c2, r1c3, 7, 9));
+    this.model.applyTick(7);
+    assertTrue(this.model.getShape(oval1id).isInvisible());
+    assertFalse(this.model.getShape("rect2").isInvisible());
+  }
+
+  /**
+   * Tests that a reused frame holds the same state of the shapes as getShapesAt.
+   */
+  @Test
+  public void testFillFrame() {
+    Frame frame = new Frame(1);
+    for (int tick = 0; tick <= 12; tick++) {
+      this.model.fillFrame(tick, frame);
+      List<IShape> shapes = this.model.getShapesAt(tick);
+      assertEquals(tick, frame.getTick());
+      assertEquals(shapes.size(), frame.getSize());
+      for (int i = 0; i < shapes.size(); i++) {
+        IShape s = shapes.get(i);
+        assertEquals(s.isOval() ? Frame.OVAL : Frame.RECTANGLE, frame.getType(i));
+        assertEquals(!s.isInvisible(), frame.isVisible(i));
+        if (!s.isInvisible()) {
+          assertEquals(s.getLocation(), new Location(frame.getX(i), frame.getY(i)));
+          assertEquals(s.getWidth(), frame.getWidth(i));
+          assertEquals(s.getHeight(), frame.getHeight(i));
+          int rgb = frame.getRgb(i);
+          assertEquals(s.getColor(), new Color(rgb >> 16, (rgb >> 8) & 0xFF, rgb & 0xFF));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that a published frame is not changed by the ticks applied after it.
+   */
+  @Test
+  public void testPublishedFrame() {
+    assertEquals(0, this.model.getPublishedFrame().getSize());
+    this.model.applyTick(3);
+    Frame first = this.model.getPublishedFrame();
+    assertEquals(3, first.getTick());
+    assertTrue(first == this.model.getPublishedFrame());
+    int width = first.getWidth(0);
+    this.model.applyTick(4);
+    this.model.applyTick(5);
+    assertEquals(3, first.getTick());
+    assertEquals(width, first.getWidth(0));
+    Frame latest = this.model.getPublishedFrame();
+    assertEquals(5, latest.getTick());
+    assertEquals(this.model.getShape(oval1id).getWidth(), latest.getWidth(0));
+  }
+
+  /**
+   * Tests that the frames published while playing a scene where few shapes are alive at a time
+   * only write the alive shapes and the shapes leaving the animation, and still hold the same
+   * state as a frame filled from scratch.
+   */
+  @Test
+  public void testPublishedFrameWritesLiveShapes() {
+    List<CountingShape> counted = new ArrayList<>();
+    AnimatorModel sparse = sparseScene(1000, counted);
+    Frame expected = new Frame();
+    // Each of the frames exchanged with the renderer is written in full the first time
+    for (int tick = 1; tick <= 3; tick++) {
+      sparse.applyTick(tick);
+      assertFramesEqual(sparse, tick, expected, sparse.getPublishedFrame());
+    }
+    for (int tick = 4; tick <= 1020; tick++) {
+      for (CountingShape s : counted) {
+        s.frameWrites = 0;
+      }
+      sparse.applyTick(tick);
+      int writes = 0;
+      for (CountingShape s : counted) {
+        writes += s.frameWrites;
+      }
+      // At most 10 shapes are alive at a tick, and one shape left the animation at each of the
+      // few ticks since the frame was last filled
+      assertTrue("Tick " + tick + " wrote " + writes + " shapes", writes <= 20);
+      // Frames are also checked after the renderer skipped some of them
+      if (tick % 7 != 0) {
+        assertFramesEqual(sparse, tick, expected, sparse.getPublishedFrame());
+      }
+    }
+    // Playing backward writes the shapes that were alive again
+    sparse.applyTick(500);
+    assertFramesEqual(sparse, 500, expected, sparse.getPublishedFrame());
+    sparse.applyTick(3);
+    assertFramesEqual(sparse, 3, expected, sparse.getPublishedFrame());
+  }
+
+  /**
+   * Tests that the work done to apply a tick follows the shapes that are alive, and not the number
+   * of shapes in the animation: two scenes with the same shapes alive at every tick update and
+   * write exactly as many shapes, although one has ten times more shapes than the other.
+   */
+  @Test
+  public void testTickWorkFollowsLiveShapes() {
+    List<CountingShape> small = new ArrayList<>();
+    AnimatorModel smallScene = sparseScene(1000, small);
+    List<CountingShape> large = new ArrayList<>();
+    AnimatorModel largeScene = sparseScene(10000, large);
+    // Each of the frames exchanged with the renderer is written in full the first time
+    for (int tick = 1; tick <= 3; tick++) {
+      smallScene.applyTick(tick);
+      largeScene.applyTick(tick);
+      smallScene.getPublishedFrame();
+      largeScene.getPublishedFrame();
+    }
+    for (CountingShape s : small) {
+      s.ticksApplied = 0;
+      s.frameWrites = 0;
+    }
+    for (CountingShape s : large) {
+      s.ticksApplied = 0;
+      s.frameWrites = 0;
+    }
+    for (int tick = 4; tick <= 1000; tick++) {
+      smallScene.applyTick(tick);
+      largeScene.applyTick(tick);
+      smallScene.getPublishedFrame();
+      largeScene.getPublishedFrame();
+    }
+    int smallTicks = 0;
+    int smallWrites = 0;
+    for (CountingShape s : small) {
+      smallTicks += s.ticksApplied;
+      smallWrites += s.frameWrites;
+    }
+    int largeTicks = 0;
+    int largeWrites = 0;
+    for (CountingShape s : large) {
+      largeTicks += s.ticksApplied;
+      largeWrites += s.frameWrites;
+    }
+    assertEquals(smallTicks, largeTicks);
+    assertEquals(smallWrites, largeWrites);
+    // Every shape is alive for 10 ticks and updated once more when it leaves the animation
+    assertTrue(smallTicks <= 11 * 1000);
+  }
+
+  /**
+   * Returns a model of the given number of shapes where shape i is alive from tick i + 1 to tick
+   * i + 10, so that at most 10 shapes are alive at a time.
+   *
+   * @param size    the number of shapes
+   * @param counted the list the shapes counting their updates are added to
+   * @return the model
+   */
+  private static AnimatorModel sparseScene(int size, List<CountingShape> counted) {
+    AnimatorModel sparse = new AnimatorModel();
+    for (int i = 0; i < size; i++) {
+      AnimatedShape shape = new AnimatedShape(i % 2 == 0 ? new Oval("s" + i)
+          : new Rectangle("s" + i));
+      shape.addMotion(new Motion(new Location(i, 0), new Location(i, 50), 5, 10, 5, 10,
+          new Color(0, 0, 0), new Color(100, 100, 100), i + 1, i + 10));
+      CountingShape s = new CountingShape(shape);
+      counted.add(s);
+      sparse.addAnimatedShape(s);
+    }
+    return sparse;
+  }
+
+  /**
+   * Checks that the given frame holds the state of the shapes of the model at the given tick.
+   *
+   * @param model    the model
+   * @param tick     the tick
+   * @param expected a frame to fill from scratch
+   * @param actual   the frame to check
+   */
+  private static void assertFramesEqual(IAnimatorModel model, int tick, Frame expected,
+      Frame actual) {
+    model.fillFrame(tick, expected);
+    assertEquals(tick, actual.getTick());
+    assertEquals(expected.getSize(), actual.getSize());
+    for (int i = 0; i < expected.getSize(); i++) {
+      assertEquals(expected.isVisible(i), actual.isVisible(i));
+      assertEquals(expected.getType(i), actual.getType(i));
+      if (expected.isVisible(i)) {
+        assertEquals(expected.getX(i), actual.getX(i));
+        assertEquals(expected.getY(i), actual.getY(i));
+        assertEquals(expected.getWidth(i), actual.getWidth(i));
+        assertEquals(expected.getHeight(i), actual.getHeight(i));
+        assertEquals(expected.getRgb(i), actual.getRgb(i));
+      }
+    }
+  }
+
+  /**
+   * Tests that the first and last ticks follow the shapes and motions added to the model.
+   */
+  @Test
+  public void testTickBounds() {
+    assertEquals(1, this.model.getFirstTick());
+    assertEquals(r1t3, this.model.getLastTick());
+    this.model.addMotion(oval1id, new Motion(o1p3, o1p3, o1w3, o1w3, o1h3, o1h3, o1c3, o1c3,
+        6, 15));
+    assertEquals(15, this.model.getLastTick());
+
+    AnimatorModel other = new AnimatorModel();
+    assertEquals(1, other.getFirstTick());
+    assertEquals(1, other.getLastTick());
+    other.addShape(new Rectangle("empty"));
+    assertEquals(1, other.getFirstTick());
+    assertEquals(1, other.getLastTick());
+    AnimatedShape late = new AnimatedShape(new Oval("late"));
+    late.addMotion(new Motion(o1p1, o1p3, o1w1, o1w3, o1h1, o1h3, o1c1, o1c3, 3, 20));
+    other.addAnimatedShape(late);
+    assertEquals(3, other.getFirstTick());
+    assertEquals(20, other.getLastTick());
+
+    this.model.clear();
+    assertEquals(1, this.model.getFirstTick());
+    assertEquals(1, this.model.getLastTick());
+  }
+
+  /**
+   * Tests that a streaming builder adds shapes and motions to a model that is loading until the
+   * builder is done, and that it stops when the model is cleared.
+   */
+  @Test
+  public void testStreamingBuilder() throws InterruptedException {
+    AnimatorModel.StreamingBuilder builder = new AnimatorModel.StreamingBuilder();
+    builder.setBounds(10, 20, 300, 400);
+    IAnimatorModel loading = builder.awaitModel();
+    assertTrue(loading.isLoading());
+    assertEquals(300, loading.getCanvasWidth());
+    assertEquals(20, loading.getCanvasStartingY());
+
+    builder.declareShape("R", "rectangle");
+    builder.declareShape("C", "ellipse");
+    builder.addMotion("R", 1, 0, 0, 5, 5, 0, 0, 0, 10, 10, 10, 5, 5, 0, 0, 0);
+    builder.addMotion("C", 4, 0, 0, 5, 5, 0, 0, 0, 4, 0, 0, 5, 5, 0, 0, 0);
+    builder.addMotion("C", 4, 0, 0, 5, 5, 0, 0, 0, 30, 0, 0, 5, 5, 0, 0, 0);
+    builder.declareShape("R", "ellipse");
+    // Shapes and motions are added in batches
+    assertTrue(loading.getAnimatedShapes().isEmpty());
+    assertTrue(builder.build() == loading);
+    assertFalse(loading.isLoading());
+    assertEquals(30, loading.getLastTick());
+    assertEquals(3, loading.getAnimatedShapes().size());
+    assertEquals(1, loading.getAnimatedShapes().get(1).getMotions().size());
+
+    AnimatorModel.StreamingBuilder failed = new AnimatorModel.StreamingBuilder();
+    failed.declareShape("R", "rectangle");
+    failed.fail(new IllegalStateException("Invalid"));
+    try {
+      failed.awaitModel();
+      fail("A failed load should not return a model");
+    } catch (IllegalStateException e) {
+      assertEquals("Invalid", e.getMessage());
+    }
+
+    AnimatorModel.StreamingBuilder stopped = new AnimatorModel.StreamingBuilder();
+    stopped.setBounds(0, 0, 100, 100);
+    stopped.declareShape("R", "rectangle");
+    IAnimatorModel cleared = stopped.awaitModel();
+    cleared.clear();
+    assertFalse(cleared.isLoading());
+    try {
+      stopped.declareShape("C", "ellipse");
+      fail("Loading should stop when the model is cleared");
+    } catch (CancellationException e) {
+      assertTrue(cleared.getAnimatedShapes().isEmpty());
+    }
+  }
+
+  /**
+   * Tests that a model played while a streaming builder loads it only rebuilds its timeline once
+   * per batch of shapes and motions, and that the shapes read before a failure are kept.
+   */
+  @Test
+  public void testStreamingBuilderBatches() throws InterruptedException {
+    AnimatorModel.StreamingBuilder builder = new AnimatorModel.StreamingBuilder();
+    builder.setBounds(0, 0, 100, 100);
+    IAnimatorModel loading = builder.awaitModel();
+    int size = 20 * AnimatorModel.StreamingBuilder.MIN_BATCH_SIZE;
+    for (int i = 0; i < size; i++) {
+      builder.declareShape("s" + i, "rectangle");
+      builder.addMotion("s" + i, 1, 0, 0, 5, 5, 0, 0, 0, i + 2, 10, 10, 5, 5, 0, 0, 0);
+      loading.applyTick(i % 100 + 1);
+      assertTrue(loading.getAnimatedShapes().size() <= i + 1);
+    }
+    builder.build();
+    loading.applyTick(1);
+    assertEquals(size, loading.getAnimatedShapes().size());
+    assertEquals(size + 1, loading.getLastTick());
+    // Rebuilding the timeline at every tick would give a ratio close to 0, while about 20 batches
+    // are added for the 20481 ticks
+    double ratio = loading.getStatistics().getTimelineHitRatio();
+    assertTrue("Timeline hit ratio " + ratio, ratio > 0.99);
+
+    AnimatorModel.StreamingBuilder failed = new AnimatorModel.StreamingBuilder();
+    failed.setBounds(0, 0, 100, 100);
+    IAnimatorModel partial = failed.awaitModel();
+    failed.declareShape("R", "rectangle");
+    assertTrue(failed.fail(new IllegalStateException("Invalid")));
+    assertFalse(partial.isLoading());
+    assertEquals(1, partial.getAnimatedShapes().size());
+  }
+
+  /**
+   * Tests that the shapes of the model are replaced together, and not at all if one is invalid.
+   */
+  @Test
+  public void testSetAnimatedShapes() {
+    AnimatedShape late = new AnimatedShape(new Oval("late"));
+    late.addMotion(new Motion(o1p1, o1p3, o1w1, o1w3, o1h1, o1h3, o1c1, o1c3, 3, 20));
+    AnimatedShape empty = new AnimatedShape(new Rectangle("empty"));
+    try {
+      this.model.setAnimatedShapes(Arrays.asList(late, empty, late));
+      fail("Duplicate shapes should not be added");
+    } catch (IllegalArgumentException e) {
+      assertEquals(2, this.model.getAnimatedShapes().size());
+    }
+    this.model.setAnimatedShapes(Arrays.asList(late, empty));
+    assertEquals(2, this.model.getAnimatedShapes().size());
+    assertEquals("late", this.model.getAnimatedShapes().get(0).getId());
+    assertEquals(3, this.model.getFirstTick());
+    assertEquals(20, this.model.getLastTick());
+  }
+
+  /**
+   * Tests the statistics of the model as ticks are applied and motions are added.
+   */
+  @Test
+  public void testStatistics() {
+    ModelStatistics stats = this.model.getStatistics();
+    assertEquals(2, stats.getShapeCount());
+    assertEquals(4, stats.getMotionCount());
+    assertEquals(6, stats.getKeyframeCount());
+    assertEquals(0, stats.getTicksApplied());
+    assertEquals(1, stats.getTimelineHitRatio(), 0);
+    assertEquals(1, stats.getMotionLookupHitRatio(), 0);
+    assertEquals(2 * 200 + 4 * 100 + 6 * 80, stats.getEstimatedModelBytes());
+    assertEquals(3 * 16 * 30, stats.getEstimatedFrameBytes());
+
+    for (int tick = 1; tick <= 10; tick++) {
+      this.model.applyTick(tick);
+    }
+    stats = this.model.getStatistics();
+    assertEquals(10, stats.getTicksApplied());
+    assertEquals(0.9, stats.getTimelineHitRatio(), 1e-9);
+    assertTrue(stats.getMotionLookupHitRatio() > 0.5);
+    assertEquals(3 * 16 * 30 + 2 * 24, stats.getEstimatedFrameBytes());
+
+    // Playing backward searches the motions again
+    this.model.applyTick(2);
+    assertTrue(this.model.getStatistics().getMotionLookupHitRatio()
+        < stats.getMotionLookupHitRatio());
+
+    this.model.addMotion(oval1id,
+        new Motion(o1p3, o1p3, o1w3, o1w3, o1h3, o1h3, o1c3, o1c3, 6, 12));
+    this.model.applyTick(12);
+    stats = this.model.getStatistics();
+    assertEquals(5, stats.getMotionCount());
+    assertEquals(12, stats.getTicksApplied());
+    assertEquals(10.0 / 12, stats.getTimelineHitRatio(), 1e-9);
+  }
+
+  /**
+   * An animated shape that counts how many times a tick is applied to it and its state is written
+   * into a frame.
+   */
+  private static final class CountingShape implements IAnimatedShape {
+
+    private final IAnimatedShape shape;
+    private int ticksApplied = 0;
+    private int frameWrites = 0;
+
+    /**
+     * Constructs a shape that counts the frame writes of the given shape.
+     *
+     * @param shape the animated shape
+     */
+    CountingShape(IAnimatedShape shape) {
+      this.shape = shape;
+    }
+
+    @Override
+    public IShape getShape() {
+      return this.shape.getShape();
+    }
+
+    @Override
+    public List<Motion> getMotions() {
+      return this.shape.getMotions();
+    }
+
+    @Override
+    public void addMotion(Motion motion) {
+      this.shape.addMotion(motion);
+    }
+
+    @Override
+    public String getId() {
+      return this.shape.getId();
+    }
+
+    @Override
+    public void applyTick(int tick) {
+      this.ticksApplied++;
+      this.shape.applyTick(tick);
+    }
+
+    @Override
+    public void applyTick(int tick, Frame frame, int index) {
+      this.ticksApplied++;
+      this.frameWrites++;
+      this.shape.applyTick(tick, frame, index);
+    }
+
+    @Override
+    public IShape getShapeAt(int tick) {
+      return this.shape.getShapeAt(tick);
+    }
+
+    @Override
+    public void writeFrame(Frame frame, int index, int tick) {
+      this.frameWrites++;
+      this.shape.writeFrame(frame, index, tick);
+    }
+
+    @Override
+    public String getShapeAsString() {
+      return this.shape.getShapeAsString();
+    }
+
+    @Override
+    public String getShapeAsString(ITextualView view) {
+      return this.shape.getShapeAsString(view);
+    }
+
+    @Override
+    public IAnimatedShape copy() {
+      return this.shape.copy();
+    }
+
+    @Override
+    public IShape getShapeAtStart() {
+      return this.shape.getShapeAtStart();
+    }
+
+    @Override
+    public int getLastTick() {
+      return this.shape.getLastTick();
+    }
+
+    @Override
+    public int getFirstTick() {
+      return this.shape.getFirstTick();
+    }
+
+    @Override
+    public List<Keyframe> getKeyframes() {
+      return this.shape.getKeyframes();
+    }
+  }
+}
@@ -3,7 +3,9 @@ package cs5004.animator.model;
 import static junit.framework.TestCase.assertEquals;
 
 import cs5004.animator.model.shapeutil.Color;
+import cs5004.animator.model.shapeutil.IShape;
 import cs5004.animator.model.shapeutil.Location;
+import cs5004.animator.model.shapeutil.Rectangle;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -41,6 +43,25 @@ public class MotionTest {
     assertEquals(10, motion1.getEndTick());
   }
 
+  /**
+   * Tests that the state of the shape is interpolated at the requested tick.
+   */
+  @Test
+  public void testGetShapeAt() {
+    Motion motion = new Motion(new Location(0, 10), new Location(10, 0),
+        10, 20, 5, 8,
+        new Color(0, 0, 255), new Color(255, 0, 0), 1, 4);
+    IShape s = motion.getShapeAt(new Rectangle("r"), 1);
+    assertEquals(new Rectangle("r", 10, 5, new Color(0, 0, 255), new Location(0, 10)), s);
+    s = motion.getShapeAt(new Rectangle("r"), 2);
+    assertEquals(new Rectangle("r", 13, 6, new Color(85, 0, 170), new Location(3, 7)), s);
+    s = motion.getShapeAt(new Rectangle("r"), 3);
+    assertEquals(new Rectangle("r", 17, 7, new Color(170, 0, 85), new Location(7, 3)), s);
+    s = motion.getShapeAt(new Rectangle("r"), 4);
+    assertEquals(new Rectangle("r", 20, 8, new Color(255, 0, 0), new Location(10, 0)), s);
+    assertEquals(true, motion.getShapeAt(new Rectangle("r"), 5).isInvisible());
+  }
+
   /**
    * Tests the constructor for bad inputs.
    */
@@ -0,0 +1,89 @@
+package cs5004.animator.monitor;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import cs5004.animator.model.AnimatorModel;
+import cs5004.animator.model.IAnimatorModel;
+import cs5004.animator.util.AnimationReader;
+import cs5004.animator.view.SvgView;
+import cs5004.animator.view.TextView;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the Flight Recorder events of the animator.
+ */
+public class EventsTest {
+
+  private static final String ANIMATION = "canvas 0 0 100 100\n"
+      + "shape R rectangle\n"
+      + "shape C ellipse\n"
+      + "motion R 1 0 0 5 5 0 0 0 10 10 10 5 5 0 0 0\n"
+      + "motion C 5 0 0 5 5 0 0 0 10 10 10 5 5 0 0 0\n";
+
+  /**
+   * Tests that parsing, applying ticks and exporting an animation are recorded with their details.
+   */
+  @Test
+  public void testEvents() throws IOException {
+    List<RecordedEvent> events = new ArrayList<>();
+    File file = File.createTempFile("animator", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(TickEvent.class).withoutThreshold();
+      recording.enable(ParseEvent.class).withoutThreshold();
+      recording.enable(ExportEvent.class).withoutThreshold();
+      recording.start();
+      IAnimatorModel model = AnimationReader.parseFile(new StringReader(ANIMATION),
+          new AnimatorModel.Builder());
+      model.applyTick(3);
+      String svg = new SvgView(model, "default", 1).getText();
+      new TextView(model, "default").writeTo(new StringWriter());
+      recording.stop();
+      recording.dump(file.toPath());
+      events.addAll(RecordingFile.readAllEvents(file.toPath()));
+
+      RecordedEvent parse = find(events, "cs5004.animator.Parse", "text");
+      assertEquals(2, parse.getLong("shapes"));
+      assertEquals(2, parse.getLong("motions"));
+      RecordedEvent tick = find(events, "cs5004.animator.Tick", null);
+      assertEquals(3, tick.getInt("tick"));
+      assertEquals(2, tick.getInt("shapes"));
+      assertEquals(1, tick.getInt("visibleShapes"));
+      RecordedEvent export = find(events, "cs5004.animator.Export", "svg");
+      assertEquals(2, export.getInt("shapes"));
+      assertEquals(svg.length(), export.getLong("size"));
+      assertTrue(find(events, "cs5004.animator.Export", "text").getLong("size") > 0);
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Returns the event with the given name and format.
+   *
+   * @param events the recorded events
+   * @param name   the name of the event
+   * @param format the format of the event, or null if the event has no format
+   * @return the event
+   * @throws AssertionError if there is no such event
+   */
+  private static RecordedEvent find(List<RecordedEvent> events, String name, String format) {
+    for (RecordedEvent e : events) {
+      if (e.getEventType().getName().equals(name)
+          && (format == null || format.equals(e.getString("format")))) {
+        return e;
+      }
+    }
+    throw new AssertionError("No " + name + " event");
+  }
+}
@@ -0,0 +1,95 @@
+package cs5004.animator.monitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the PerformanceMonitor and LatencyHistogram classes.
+ */
+public class PerformanceMonitorTest {
+
+  /**
+   * Tests that every duration falls in a bucket ending at or slightly above it.
+   */
+  @Test
+  public void testBuckets() {
+    long[] durations = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123_456, 16_666_667, Long.MAX_VALUE};
+    for (long nanos : durations) {
+      long end = LatencyHistogram.getBucketEnd(LatencyHistogram.getBucket(nanos));
+      assertTrue(nanos + " ends at " + end, end >= nanos);
+      assertTrue(nanos + " ends at " + end, end - nanos <= nanos / 8);
+    }
+    int previous = -1;
+    for (long nanos = 0; nanos < 100_000; nanos++) {
+      int bucket = LatencyHistogram.getBucket(nanos);
+      assertTrue(bucket == previous || bucket == previous + 1);
+      previous = bucket;
+    }
+  }
+
+  /**
+   * Tests the percentiles of the durations recorded between two readings of a histogram.
+   */
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 1000; i++) {
+      histogram.record(5_000_000);
+    }
+    long[] from = histogram.getCounts();
+    assertEquals(0, LatencyHistogram.getPercentile(from, from, 50));
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i * 1000);
+    }
+    long[] to = histogram.getCounts();
+    long p50 = LatencyHistogram.getPercentile(from, to, 50);
+    long p99 = LatencyHistogram.getPercentile(from, to, 99);
+    assertTrue(Long.toString(p50), p50 >= 50_000 && p50 <= 50_000 * 9 / 8);
+    assertTrue(Long.toString(p99), p99 >= 99_000 && p99 <= 99_000 * 9 / 8);
+    assertTrue(LatencyHistogram.getPercentile(null, to, 50) >= 5_000_000);
+  }
+
+  /**
+   * Tests that an invalid percentile is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPercentile() {
+    LatencyHistogram.getPercentile(null, new LatencyHistogram().getCounts(), 101);
+  }
+
+  /**
+   * Tests the counts read between two samples of a monitor.
+   */
+  @Test
+  public void testSamples() {
+    PerformanceMonitor monitor = new PerformanceMonitor();
+    monitor.recordTick(1000);
+    PerformanceMonitor.Sample first = monitor.sample();
+    monitor.setRequestedSpeed(20);
+    for (int i = 0; i < 10; i++) {
+      monitor.recordTick(2000);
+      monitor.recordPaint(30_000, 4);
+    }
+    monitor.recordDroppedTicks(3);
+    monitor.recordDroppedTicks(0);
+    monitor.recordTimerStart();
+    monitor.recordTimerRun(1);
+    PerformanceMonitor.Sample second = monitor.sample();
+
+    assertEquals(20, second.getRequestedSpeed());
+    assertEquals(4, second.getVisibleShapes());
+    assertEquals(3, second.getDroppedTicks(first));
+    assertEquals(0, second.getLateFrames(first));
+    assertTrue(second.getTickTime(first, 50) >= 2000);
+    assertTrue(second.getTickTime(first, 50) <= 2000 * 9 / 8);
+    assertTrue(second.getPaintTime(first, 99) >= 30_000);
+    assertTrue(second.getTicksPerSecond(first) > 0);
+    assertTrue(second.getFramesPerSecond(first) > 0);
+    assertEquals(0, second.getTicksPerSecond(second), 0);
+
+    monitor.recordTimerRun(1);
+    assertEquals(1, monitor.sample().getLateFrames(second));
+  }
+}
@@ -0,0 +1,135 @@
+package cs5004.animator.util;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the AnimationReader class.
+ */
+public class AnimationReaderTest {
+
+  /**
+   * Returns a large animation with many motions, whose statements are sometimes split across lines.
+   *
+   * @return the text of the animation
+   */
+  private static String largeAnimation() {
+    StringBuilder text = new StringBuilder("canvas 0 0 400 300\nshape R rectangle\n");
+    for (int i = 0; text.length() < 3 << 20; i++) {
+      if (i % 100 == 0) {
+        text.append("shape C").append(i).append("\nellipse\n");
+      }
+      text.append("motion R ").append(i).append(" 1 2 3 4 5 6 7")
+          .append(i % 3 == 0 ? "\n" : " ").append(i + 1).append(" 1 2 3 4 5 6 7\n");
+    }
+    return text.toString();
+  }
+
+  /**
+   * Returns the calls made to a builder while parsing the given text, or the error if the text is
+   * invalid.
+   *
+   * @param text       the text of the animation
+   * @param isParallel whether to parse in parallel
+   * @return the calls made to the builder, or the message of the error
+   */
+  private static String parse(String text, boolean isParallel) {
+    try {
+      return isParallel
+          ? AnimationReader.parseFileParallel(new StringReader(text), new TraceBuilder())
+          : AnimationReader.parseFile(new StringReader(text), new TraceBuilder());
+    } catch (IllegalStateException e) {
+      return "error: " + e.getMessage();
+    }
+  }
+
+  /**
+   * Tests that parsing in parallel makes the same calls to the builder as parsing sequentially.
+   */
+  @Test
+  public void testParseFileParallel() {
+    String text = largeAnimation();
+    assertEquals(parse(text, false), parse(text, true));
+  }
+
+  /**
+   * Tests that statements taking a keyword from the next line, and invalid statements, are read in
+   * parallel as they are read sequentially.
+   */
+  @Test
+  public void testParseFileParallelAcrossChunks() {
+    String text = largeAnimation();
+    int middle = text.indexOf("\nmotion", text.length() / 2) + 1;
+    String[] inserts = {"shape S\n", "shape S ellipse\nmotion S 1 2\n", "canvas 1 2 3\n",
+        "motion R 1 2 3 4 5 6 7\n"};
+    for (String insert : inserts) {
+      String changed = text.substring(0, middle) + insert + text.substring(middle);
+      String expected = parse(changed, false);
+      assertTrue(expected.startsWith("error: "));
+      assertEquals(expected, parse(changed, true));
+    }
+  }
+
+  /**
+   * Tests that a recorder replays the calls made to it in order.
+   */
+  @Test
+  public void testRecorder() {
+    AnimationRecorder recorder = new AnimationRecorder();
+    TraceBuilder direct = new TraceBuilder();
+    for (int i = 0; i < 1000; i++) {
+      recorder.setBounds(i, 1, 2, 3);
+      direct.setBounds(i, 1, 2, 3);
+      recorder.declareShape("S" + i, "rectangle");
+      direct.declareShape("S" + i, "rectangle");
+      recorder.addMotion("S" + i, i, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, i);
+      direct.addMotion("S" + i, i, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, i);
+    }
+    TraceBuilder replayed = new TraceBuilder();
+    recorder.replay(replayed);
+    assertEquals(direct.build(), replayed.build());
+  }
+
+  /**
+   * A builder that describes the calls made to it as text.
+   */
+  private static final class TraceBuilder implements AnimationBuilder<String> {
+
+    private final StringBuilder trace = new StringBuilder();
+
+    @Override
+    public String build() {
+      return this.trace.toString();
+    }
+
+    @Override
+    public AnimationBuilder<String> setBounds(int x, int y, int width, int height) {
+      this.trace.append("canvas ").append(x).append(' ').append(y).append(' ').append(width)
+          .append(' ').append(height).append('\n');
+      return this;
+    }
+
+    @Override
+    public AnimationBuilder<String> declareShape(String name, String type) {
+      this.trace.append("shape ").append(name).append(' ').append(type).append('\n');
+      return this;
+    }
+
+    @Override
+    public AnimationBuilder<String> addMotion(String name, int t1, int x1, int y1, int w1,
+        int h1, int r1, int g1, int b1, int t2, int x2, int y2, int w2, int h2, int r2, int g2,
+        int b2) {
+      this.trace.append("motion ").append(name);
+      int[] values = {t1, x1, y1, w1, h1, r1, g1, b1, t2, x2, y2, w2, h2, r2, g2, b2};
+      for (int value : values) {
+        this.trace.append(' ').append(value);
+      }
+      this.trace.append('\n');
+      return this;
+    }
+  }
+}
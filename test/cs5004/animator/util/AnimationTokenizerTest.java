@@ -0,0 +1,117 @@
+package cs5004.animator.util;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the AnimationTokenizer class.
+ */
+public class AnimationTokenizerTest {
+
+  /**
+   * Tests that tokens are split at whitespace and that comments are skipped.
+   */
+  @Test
+  public void testNext() {
+    AnimationTokenizer s = new AnimationTokenizer(new StringReader(
+        "# a comment\n  shape R rectangle#trailing comment\r\n\tmotion\f R  "));
+    assertTrue(s.hasNext());
+    assertEquals("shape", s.next());
+    assertEquals("R", s.next());
+    assertEquals("rectangle", s.next());
+    assertEquals("motion", s.next());
+    assertEquals("R", s.next());
+    assertFalse(s.hasNext());
+  }
+
+  /**
+   * Tests that only tokens holding an integer that fits in an int are integers.
+   */
+  @Test
+  public void testNextInt() {
+    AnimationTokenizer s = new AnimationTokenizer(new StringReader(
+        "12 -7 +3 007 2147483647 -2147483648 2147483648 1x - "));
+    assertEquals(12, s.nextInt());
+    assertEquals(-7, s.nextInt());
+    assertEquals(3, s.nextInt());
+    assertEquals(7, s.nextInt());
+    assertEquals(Integer.MAX_VALUE, s.nextInt());
+    assertEquals(Integer.MIN_VALUE, s.nextInt());
+    assertFalse(s.hasNextInt());
+    assertEquals("2147483648", s.next());
+    assertFalse(s.hasNextInt());
+    assertEquals("1x", s.next());
+    assertFalse(s.hasNextInt());
+    assertEquals("-", s.next());
+    assertFalse(s.hasNextInt());
+  }
+
+  /**
+   * Tests that tokens longer than the buffer are read whole.
+   */
+  @Test
+  public void testLongToken() {
+    StringBuilder name = new StringBuilder();
+    for (int i = 0; i < 200000; i++) {
+      name.append('a');
+    }
+    AnimationTokenizer s = new AnimationTokenizer(new StringReader("shape " + name + " 5"));
+    assertEquals("shape", s.next());
+    assertEquals(name.toString(), s.next());
+    assertEquals(5, s.nextInt());
+  }
+
+  /**
+   * Tests the error messages of the reader for invalid input.
+   */
+  @Test
+  public void testErrors() {
+    String[] inputs = {"canvas 1 2 x", "motion R 1 2", "shape R", "paint R 1 2\nshape R oval"};
+    String[] messages = {"Canvas: expected integer for width, got: x",
+        "Motion: expected integer for initial y-coordinate, but no more input available",
+        "Shape: Expected a type, but no more input available",
+        "Unexpected keyword: paint R 1 2"};
+    for (int i = 0; i < inputs.length; i++) {
+      try {
+        AnimationReader.parseFile(new StringReader(inputs[i]), new EmptyBuilder());
+        fail("The input should not be read: " + inputs[i]);
+      } catch (IllegalStateException e) {
+        assertEquals(messages[i], e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * A builder that ignores the animation.
+   */
+  private static final class EmptyBuilder implements AnimationBuilder<String> {
+
+    @Override
+    public String build() {
+      return "";
+    }
+
+    @Override
+    public AnimationBuilder<String> setBounds(int x, int y, int width, int height) {
+      return this;
+    }
+
+    @Override
+    public AnimationBuilder<String> declareShape(String name, String type) {
+      return this;
+    }
+
+    @Override
+    public AnimationBuilder<String> addMotion(String name, int t1, int x1, int y1, int w1,
+        int h1, int r1, int g1, int b1, int t2, int x2, int y2, int w2, int h2, int r2, int g2,
+        int b2) {
+      return this;
+    }
+  }
+}
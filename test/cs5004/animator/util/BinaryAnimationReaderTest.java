@@ -0,0 +1,134 @@
+package cs5004.animator.util;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import cs5004.animator.model.AnimatorModel;
+import cs5004.animator.model.IAnimatorModel;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the BinaryAnimationReader and BinaryAnimationWriter classes.
+ */
+public class BinaryAnimationReaderTest {
+
+  private static final String ANIMATION = "canvas 10 20 300 400\n"
+      + "shape R rectangle\n"
+      + "shape empty ellipse\n"
+      + "shape \u00e9toile ellipse\n"
+      + "motion R 1 0 0 5 5 255 0 0 10 10 10 5 5 255 0 0\n"
+      + "motion R 10 10 10 5 5 255 0 0 10 10 10 5 5 0 128 255\n"
+      + "motion \u00e9toile 3 1 2 3 4 5 6 7 20 -8 -9 10 11 12 13 14\n";
+
+  /**
+   * Returns the given model compiled in the binary format.
+   *
+   * @param model the model
+   * @return the bytes of the binary file
+   * @throws IOException if the model cannot be written
+   */
+  private static byte[] compile(IAnimatorModel model) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryAnimationWriter.write(model, out);
+    return out.toByteArray();
+  }
+
+  /**
+   * Tests that a compiled model is read back as the same animation.
+   */
+  @Test
+  public void testRoundTrip() throws IOException {
+    IAnimatorModel model = AnimationReader.parseFile(new StringReader(ANIMATION),
+        new AnimatorModel.Builder());
+    byte[] bytes = compile(model);
+    IAnimatorModel read = BinaryAnimationReader.parse(ByteBuffer.wrap(bytes),
+        new AnimatorModel.Builder());
+    assertEquals(model.toString(), read.toString());
+    assertEquals(3, read.getAnimatedShapes().size());
+    assertEquals(2, read.getAnimatedShapes().get(0).getMotions().size());
+    assertEquals(20, read.getLastTick());
+    assertEquals(10, read.getCanvasStartingX());
+    assertEquals(400, read.getCanvasHeight());
+
+    File file = File.createTempFile("animation", ".bin");
+    try {
+      try (OutputStream out = new FileOutputStream(file)) {
+        out.write(bytes);
+      }
+      assertTrue(BinaryAnimationReader.isBinaryFile(file.getPath()));
+      assertEquals(model.toString(), BinaryAnimationReader.parseFile(file.getPath(),
+          new AnimatorModel.Builder()).toString());
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Tests that an animation declaring the same name twice, which the reader could not add the
+   * keyframes of by name, is not compiled.
+   */
+  @Test
+  public void testRepeatedName() throws IOException {
+    IAnimatorModel model = AnimationReader.parseFile(new StringReader("canvas 0 0 100 100\n"
+        + "shape R rectangle\n"
+        + "motion R 1 0 0 5 5 0 0 0 10 10 10 5 5 0 0 0\n"
+        + "shape R ellipse\n"
+        + "motion R 10 10 10 5 5 0 0 0 20 0 0 5 5 0 0 0\n"), new AnimatorModel.Builder());
+    assertEquals(2, model.getAnimatedShapes().size());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      BinaryAnimationWriter.write(model, out);
+      fail("Shapes with the same name should not be compiled");
+    } catch (IllegalArgumentException e) {
+      assertEquals(0, out.size());
+    }
+  }
+
+  /**
+   * Tests that text files are not taken for binary files.
+   */
+  @Test
+  public void testIsBinaryFile() throws IOException {
+    File file = File.createTempFile("animation", ".txt");
+    try {
+      try (OutputStream out = new FileOutputStream(file)) {
+        out.write("can".getBytes("US-ASCII"));
+      }
+      assertFalse(BinaryAnimationReader.isBinaryFile(file.getPath()));
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Tests that invalid binary files are rejected.
+   */
+  @Test
+  public void testInvalid() throws IOException {
+    byte[] bytes = compile(AnimationReader.parseFile(new StringReader(ANIMATION),
+        new AnimatorModel.Builder()));
+    byte[][] invalid = {
+        Arrays.copyOf(bytes, bytes.length - 1),
+        Arrays.copyOf(bytes, 10),
+        ANIMATION.getBytes("US-ASCII")};
+    for (byte[] b : invalid) {
+      try {
+        BinaryAnimationReader.parse(ByteBuffer.wrap(b), new AnimatorModel.Builder());
+        fail("Invalid binary files should be rejected");
+      } catch (IllegalStateException e) {
+        // Expected
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package cs5004.animator.view;
+
+import static cs5004.animator.TheEasyAnimator.initializeAnimationModel;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import cs5004.animator.model.IAnimatorModel;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the BenchView class.
+ */
+public class BenchViewTest {
+
+  String inFilePath = "resources/smalldemo.txt";
+  IAnimatorModel model;
+
+  /**
+   * Set up the model for the test from the input file.
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.model = initializeAnimationModel(inFilePath);
+  }
+
+  /**
+   * Tests that every measured iteration and the result over all of them are described.
+   */
+  @Test
+  public void testText() {
+    String[] lines = new BenchView(this.model, "default", 3, 1).getText()
+        .split(System.lineSeparator());
+    assertEquals(5, lines.length);
+    assertEquals("2 shapes, 100 ticks, 1 warm-up and 3 measured iterations", lines[0]);
+    for (int i = 1; i <= 3; i++) {
+      assertTrue(lines[i], lines[i].startsWith("Iteration " + i + ": "));
+    }
+    assertTrue(lines[4], lines[4].startsWith("Result: "));
+    for (int i = 1; i < lines.length; i++) {
+      assertTrue(lines[i], lines[i].contains(" ticks/s, "));
+      assertTrue(lines[i], lines[i].contains(" ns per shape-tick, "));
+      assertTrue(lines[i], lines[i].endsWith(" bytes per tick")
+          || lines[i].endsWith("allocation n/a"));
+    }
+  }
+
+  /**
+   * Tests that the model is left at the last tick of the animation.
+   */
+  @Test
+  public void testLastTick() {
+    new BenchView(this.model, "default", 1, 0).getText();
+    assertEquals(100, this.model.getTick());
+  }
+
+  /**
+   * Tests that a number of iterations below 1 is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidIterations() {
+    new BenchView(this.model, "default", 0, 1);
+  }
+
+  /**
+   * Tests that a negative number of warm-up iterations is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidWarmup() {
+    new BenchView(this.model, "default", 1, -1);
+  }
+
+  /**
+   * Tests that a null model is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullModel() {
+    new BenchView(null, "default", 1, 1);
+  }
+}
@@ -0,0 +1,102 @@
+package cs5004.animator.view;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import cs5004.animator.model.AnimatorModel;
+import cs5004.animator.model.Frame;
+import cs5004.animator.util.AnimationBuilder;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+/**
+ * A JUnit test class for the FrameGrid class.
+ */
+public class FrameGridTest {
+
+  /**
+   * Returns a frame of randomly placed shapes, some of them very large and some of them invisible.
+   *
+   * @param random the source of randomness
+   * @param count  the number of shapes
+   * @return the frame
+   */
+  private static Frame randomFrame(Random random, int count) {
+    AnimationBuilder<?> builder = new AnimatorModel.Builder();
+    for (int i = 0; i < count; i++) {
+      builder.declareShape("s" + i, i % 2 == 0 ? "rectangle" : "ellipse");
+      int x = random.nextInt(4000) - 1000;
+      int y = random.nextInt(3000) - 1000;
+      int size = i % 50 == 0 ? 2000 : random.nextInt(100);
+      // Every tenth shape only appears after the tick of the frame
+      int start = i % 10 == 0 ? 5 : 1;
+      builder.addMotion("s" + i, start, x, y, size, size + 1, 0, 0, 0,
+          10, x, y, size, size + 1, 0, 0, 0);
+    }
+    Frame frame = new Frame();
+    ((AnimatorModel) builder.build()).fillFrame(2, frame);
+    return frame;
+  }
+
+  /**
+   * Returns the visible shapes of the frame intersecting the given rectangle, by checking every
+   * shape.
+   *
+   * @param frame the frame
+   * @param x     the x coordinate of the rectangle
+   * @param y     the y coordinate of the rectangle
+   * @param w     the width of the rectangle
+   * @param h     the height of the rectangle
+   * @return the positions of the shapes
+   */
+  private static int[] intersecting(Frame frame, int x, int y, int w, int h) {
+    return IntStream.range(0, frame.getSize())
+        .filter((i) -> frame.isVisible(i) && frame.getX(i) < x + w && frame.getY(i) < y + h
+            && frame.getX(i) + frame.getWidth(i) > x && frame.getY(i) + frame.getHeight(i) > y)
+        .toArray();
+  }
+
+  /**
+   * Tests that a query returns every visible shape intersecting the rectangle, in order and once.
+   */
+  @Test
+  public void testQuery() {
+    Random random = new Random(5004);
+    FrameGrid grid = new FrameGrid();
+    for (int round = 0; round < 5; round++) {
+      Frame frame = randomFrame(random, 500 + 300 * round);
+      grid.build(frame);
+      for (int q = 0; q < 50; q++) {
+        int x = random.nextInt(5000) - 1500;
+        int y = random.nextInt(4000) - 1500;
+        int w = random.nextInt(800);
+        int h = random.nextInt(800);
+        int[] candidates = Arrays.copyOf(grid.query(x, y, w, h), grid.getResultCount());
+        for (int i = 1; i < candidates.length; i++) {
+          assertTrue(candidates[i - 1] < candidates[i]);
+        }
+        int[] expected = intersecting(frame, x, y, w, h);
+        int[] actual = Arrays.stream(candidates)
+            .filter((i) -> Arrays.binarySearch(expected, i) >= 0).toArray();
+        assertArrayEquals(expected, actual);
+        for (int i : candidates) {
+          assertTrue(frame.isVisible(i));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that a frame without visible shapes gives no shapes.
+   */
+  @Test
+  public void testEmptyFrame() {
+    FrameGrid grid = new FrameGrid();
+    grid.build(new Frame());
+    grid.query(0, 0, 100, 100);
+    assertEquals(0, grid.getResultCount());
+  }
+}
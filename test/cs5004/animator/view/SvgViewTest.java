@@ -5,6 +5,7 @@ import static cs5004.animator.TheEasyAnimator.initializeAnimationModel;
 import static org.junit.Assert.assertEquals;
 
 import cs5004.animator.model.IAnimatorModel;
+import java.io.StringWriter;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -64,4 +65,69 @@ public class SvgViewTest {
         + "</svg>";
     assertEquals(expectedSvgOutput, view.getText());
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests that the text is the same every time it is asked for, and that it is the same as the
+   * text written to a writer.
+   *
+   * @throws Exception if the writer fails
+   */
+  @Test
+  public void testWriteTo() throws Exception {
+    SvgView view = new SvgView(this.model, "default", 40);
+    String text = view.getText();
+    assertEquals(text, view.getText());
+    StringWriter out = new StringWriter();
+    view.writeTo(out);
+    assertEquals(text, out.toString());
+  }
+
+  /**
+   * Testing the compact representation of the animation against the expected output.
+   */
+  @Test
+  public void testSmallDemoCompact() {
+    ITextualView view = new SvgView(this.model, "default", 40, true);
+    String expectedSvgOutput = ""
+        + "<svg viewbox=\"200 70 360 360\" version=\"1.1\"\n"
+        + "     xmlns=\"http://www.w3.org/2000/svg\">\n"
+        + "<rect id=\"R\" x=\"200\" y=\"200\" width=\"50\" height=\"100\" fill=\"rgb(255,0,0)\""
+        + " visibility=\"visible\" >\n"
+        + "\t<animate attributeType=\"xml\" begin=\"25.0ms\" dur=\"2475.0ms\" attributeName=\""
+        + "width\" values=\"50;50;25;25\" keyTimes=\"0;0.5051;0.697;1\" fill=\"remove\"/>\n"
+        + "\t<animate attributeType=\"xml\" begin=\"25.0ms\" dur=\"2475.0ms\" attributeName=\"x\""
+        + " values=\"200;200;300;300;200\" keyTimes=\"0;0.0909;0.4949;0.697;1\""
+        + " fill=\"remove\"/>\n"
+        + "\t<animate attributeType=\"xml\" begin=\"25.0ms\" dur=\"2475.0ms\" attributeName=\"y\""
+        + " values=\"200;200;300;300;200\" keyTimes=\"0;0.0909;0.4949;0.697;1\""
+        + " fill=\"remove\"/>\n"
+        + "</rect>\n"
+        + "<ellipse id=\"C\" cx=\"500.0\" cy=\"100.0\" rx=\"60.0\" ry=\"30.0\" fill=\"rgb(0,0,255)"
+        + "\" visibility=\"hidden\" >\n"
+        + "\t<animate attributeType=\"xml\" begin=\"25.0ms\" dur=\"125.0ms\" attributeName=\""
+        + "visibility\" from=\"hidden\" to=\"visible\" fill=\"freeze\"/>\n"
+        + "\t<animate attributeType=\"xml\" begin=\"150.0ms\" dur=\"2350.0ms\" attributeName=\""
+        + "fill\" values=\"rgb(0,0,255);rgb(0,0,255);rgb(0,170,85);rgb(0,255,0);rgb(0,255,0)\""
+        + " keyTimes=\"0;0.4681;0.6809;0.7872;1\" fill=\"remove\"/>\n"
+        + "\t<animate attributeType=\"xml\" begin=\"150.0ms\" dur=\"2350.0ms\" attributeName=\""
+        + "cy\" values=\"100.0;100.0;280.0;400.0;400.0\" keyTimes=\"0;0.1489;0.4681;0.6809;1\""
+        + " fill=\"remove\"/>\n"
+        + "</ellipse>\n"
+        + "</svg>";
+    assertEquals(expectedSvgOutput, view.getText());
+  }
+
+  /**
+   * Tests that writing the shapes in parallel gives the same output as writing them sequentially.
+   */
+  @Test
+  public void testParallel() {
+    for (boolean isCompact : new boolean[]{false, true}) {
+      SvgView sequential = new SvgView(this.model, "default", 40, isCompact);
+      sequential.setParallelThreshold(Integer.MAX_VALUE);
+      SvgView parallel = new SvgView(this.model, "default", 40, isCompact);
+      parallel.setParallelThreshold(0);
+      assertEquals(sequential.getText(), parallel.getText());
+    }
+  }
+}
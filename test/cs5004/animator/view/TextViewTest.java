@@ -3,7 +3,10 @@ package cs5004.animator.view;
 import static cs5004.animator.TheEasyAnimator.initializeAnimationModel;
 import static org.junit.Assert.assertEquals;
 
+import cs5004.animator.model.AnimatorModel;
 import cs5004.animator.model.IAnimatorModel;
+import java.io.StringWriter;
+import java.io.Writer;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -46,4 +49,64 @@ public class TextViewTest {
     String actualOutput = view.getText();
     assertEquals(expectedOutput, actualOutput);
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests that the text is the same every time it is asked for, and that it is the same as the
+   * text written to a writer.
+   *
+   * @throws Exception if the writer fails
+   */
+  @Test
+  public void testWriteTo() throws Exception {
+    ITextualView view = new TextView(this.model, "default");
+    String text = view.getText();
+    assertEquals(text, view.getText());
+    StringWriter out = new StringWriter();
+    view.writeTo(out);
+    assertEquals(text, out.toString());
+  }
+
+  /**
+   * Tests that a description written while the view is writing another one does not change
+   * either of them.
+   *
+   * @throws Exception if the writer fails
+   */
+  @Test
+  public void testNestedWriteTo() throws Exception {
+    ITextualView view = new TextView(this.model, "default");
+    String text = view.getText();
+    String[] nested = new String[1];
+    StringWriter out = new StringWriter();
+    view.writeTo(new Writer() {
+      @Override
+      public void write(char[] buffer, int offset, int length) {
+        if (nested[0] == null) {
+          nested[0] = view.getText();
+        }
+        out.write(buffer, offset, length);
+      }
+
+      @Override
+      public void flush() {
+        // Nothing to flush
+      }
+
+      @Override
+      public void close() {
+        // Nothing to close
+      }
+    });
+    assertEquals(text, nested[0]);
+    assertEquals(text, out.toString());
+  }
+
+  /**
+   * Tests the textual representation of an animation without shapes.
+   */
+  @Test
+  public void testEmpty() {
+    ITextualView view = new TextView(new AnimatorModel(), "default");
+    assertEquals("\n", view.getText());
+  }
+}